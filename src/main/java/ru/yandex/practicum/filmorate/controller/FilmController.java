@@ -2,7 +2,7 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,70 +12,73 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeStreamService;
 
 import java.util.Collection;
 import java.util.List;
 
 @RestController
-@Slf4j
 @RequestMapping("/films")
 @RequiredArgsConstructor
 public class FilmController {
     private final FilmService filmService;
+    private final LikeStreamService likeStreamService;
 
     @GetMapping
     public Collection<Film> findAll() {
-        log.info("Получен HTTP-запрос на получение всех фильмов");
-        List<Film> allFilms = filmService.findAll();
-        log.info("Успешно обработан HTTP-запрос на получение всех фильмов");
-        return allFilms;
+        return filmService.findAll();
+    }
+
+    @GetMapping(params = "ids")
+    public List<Film> findAllById(@RequestParam List<Long> ids) {
+        return filmService.findAllById(ids);
     }
 
     @PostMapping
     public Film create(@RequestBody @Valid Film film) {
-        log.info("Получен HTTP-запрос на создание фильма: {}", film);
-        Film createdFilm = filmService.create(film);
-        log.info("Успешно обработан HTTP-запрос на создание фильма: {}", createdFilm);
-        return createdFilm;
+        return filmService.create(film);
     }
 
     @PutMapping
     public Film update(@RequestBody @Valid Film film) {
-        log.info("Получен HTTP-запрос на обновление фильма: {}", film);
-        Film updatedFilm = filmService.update(film);
-        log.info("Успешно обработан HTTP-запрос на обновление фильма: {}", updatedFilm);
-        return updatedFilm;
+        return filmService.update(film);
     }
 
     @GetMapping("/{id}")
     public Film get(@PathVariable long id) {
-        log.info("Получен HTTP-запрос на получение фильма с id: {}", id);
-        Film existingFilm = filmService.get(id);
-        log.info("Успешно обработан HTTP-запрос на получение фильма с id: {}", id);
-        return existingFilm;
+        return filmService.get(id);
+    }
+
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable long id) {
+        filmService.delete(id);
     }
 
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable long id, @PathVariable long userId) {
-        log.info("Получен HTTP-запрос на добавление лайка фильму с id = {} от пользователя = {}", id, userId);
         filmService.addLike(id, userId);
-        log.info("Успешно обработан HTTP-запрос на добавление лайка фильму с id = {} от пользователя = {}", id, userId);
     }
 
     @DeleteMapping("/{id}/like/{userId}")
     public void removeLike(@PathVariable long id, @PathVariable long userId) {
-        log.info("Получен HTTP-запрос на удаление лайка фильму с id = {} от пользователя = {}", id, userId);
         filmService.removeLike(id, userId);
-        log.info("Успешно обработан HTTP-запрос на удаление лайка фильму с id = {} от пользователя = {}", id, userId);
+    }
+
+    @GetMapping(path = "/{id}/likes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLikes(@PathVariable long id) {
+        return likeStreamService.subscribeToFilm(id);
+    }
+
+    @GetMapping(path = "/popular/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPopular(@RequestParam(defaultValue = "10") int count) {
+        return likeStreamService.subscribeToPopular(count);
     }
 
     @GetMapping("/popular")
     public List<Film> getPopular(@RequestParam(defaultValue = "10") int count) {
-        log.info("Получен HTTP-запрос на получение {} самых залайканых фильмов", count);
-        List<Film> popularFilms = filmService.getPopular(count);
-        log.info("Успешно обработан HTTP-запрос на получение {} самых залайканых фильмов", count);
-        return popularFilms;
+        return filmService.getPopular(count);
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.dal.replica.ReplicaRouter;
+import ru.yandex.practicum.filmorate.model.HotLikeStats;
+import ru.yandex.practicum.filmorate.model.PurgeStats;
+import ru.yandex.practicum.filmorate.model.ReplicaStats;
+import ru.yandex.practicum.filmorate.model.SingleFlightStats;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.HotLikeService;
+import ru.yandex.practicum.filmorate.service.PurgeService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/stats")
+@RequiredArgsConstructor
+public class StatsController {
+    private final FilmService filmService;
+    private final UserService userService;
+    private final PurgeService purgeService;
+    private final HotLikeService hotLikeService;
+    private final Optional<ReplicaRouter> replicaRouter;
+
+    @GetMapping("/single-flight")
+    public List<SingleFlightStats> getSingleFlightStats() {
+        List<SingleFlightStats> stats = new ArrayList<>(filmService.getSingleFlightStats());
+        stats.addAll(userService.getSingleFlightStats());
+        return stats;
+    }
+
+    @GetMapping("/replication")
+    public List<ReplicaStats> getReplicationStats() {
+        return replicaRouter.map(ReplicaRouter::getStats).orElseGet(List::of);
+    }
+
+    @GetMapping("/purge")
+    public PurgeStats getPurgeStats() {
+        return purgeService.getStats();
+    }
+
+    @GetMapping("/hot-likes")
+    public HotLikeStats getHotLikeStats() {
+        return hotLikeService.getStats();
+    }
+}
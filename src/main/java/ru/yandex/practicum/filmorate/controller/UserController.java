@@ -2,7 +2,6 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,7 +9,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendPath;
+import ru.yandex.practicum.filmorate.model.MutualFriend;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
@@ -18,7 +21,6 @@ import java.util.Collection;
 import java.util.List;
 
 @RestController
-@Slf4j
 @RequestMapping("/users")
 @RequiredArgsConstructor
 public class UserController {
@@ -27,63 +29,66 @@ public class UserController {
 
     @GetMapping
     public Collection<User> findAll() {
-        log.info("Получен HTTP-запрос на получение всех пользователей");
-        List<User> allUsers = userService.findAll();
-        log.info("Успешно обработан HTTP-запрос на получение всех пользователей");
-        return allUsers;
+        return userService.findAll();
+    }
+
+    @GetMapping(params = "ids")
+    public List<User> findAllById(@RequestParam List<Long> ids) {
+        return userService.findAllById(ids);
     }
 
     @PostMapping
     public User create(@RequestBody @Valid User user) {
-        log.info("Получен HTTP-запрос на создание пользователя: {}", user);
         userService.create(user);
-        log.info("Успешно обработан HTTP-запрос на создание пользователя: {}", user);
         return user;
     }
 
     @PutMapping
     public User update(@RequestBody @Valid User user) {
-        log.info("Получен HTTP-запрос на обновление пользователя: {}", user);
-        User updatedUser = userService.update(user);
-        log.info("Успешно обработан HTTP-запрос на обновление пользователя: {}", updatedUser);
-        return updatedUser;
+        return userService.update(user);
     }
 
     @GetMapping("/{id}")
     public User get(@PathVariable long id) {
-        log.info("Получен HTTP-запрос на получение пользователя с id: {}", id);
-        User existingUser = userService.get(id);
-        log.info("Успешно обработан HTTP-запрос на получение пользователя с id: {}", id);
-        return existingUser;
+        return userService.get(id);
+    }
+
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable long id) {
+        userService.delete(id);
     }
 
     @PutMapping("/{id}/friends/{friendId}")
     public void addFriend(@PathVariable long id, @PathVariable long friendId) {
-        log.info("Получен HTTP-запрос на добавление пользователей с id: {} и {} в друзья", id, friendId);
         userService.addFriend(id, friendId);
-        log.info("Успешно обработан HTTP-запрос на добавление пользователей с id: {} и {} в друзья", id, friendId);
     }
 
     @DeleteMapping("/{id}/friends/{friendId}")
     public void deleteFriend(@PathVariable long id, @PathVariable long friendId) {
-        log.info("Получен HTTP-запрос на удаление пользователей с id: {} и {} из друзей", id, friendId);
         userService.removeFriend(id, friendId);
-        log.info("Успешно обработан HTTP-запрос на удаление пользователей с id: {} и {} из друзей", id, friendId);
     }
 
     @GetMapping("/{id}/friends")
     public List<User> getFriendById(@PathVariable long id) {
-        log.info("Получен HTTP-запрос на получение списка друзей пользователя с id: {}", id);
-        List<User> friends = userService.getFriendsById(id);
-        log.info("Успешно обработан HTTP-запрос на получение списка друзей пользователя с id: {}", id);
-        return friends;
+        return userService.getFriendsById(id);
+    }
+
+    @GetMapping(value = "/{id}/friends", params = "sort")
+    public List<MutualFriend> getFriendsSorted(@PathVariable long id, @RequestParam String sort) {
+        if (!"mutual".equals(sort)) {
+            throw new ValidationException("Неизвестная сортировка друзей: " + sort);
+        }
+        return userService.getFriendsByMutual(id);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable long id, @PathVariable long otherId) {
-        log.info("Получен HTTP-запрос на получение общих друзей пользователей с id: {} и {}", id, otherId);
-        List<User> commonFriends = userService.getCommonFriends(id, otherId);
-        log.info("Успешно обработан HTTP-запрос на получение общих друзей пользователей с id: {} и {}", id, otherId);
-        return commonFriends;
+        return userService.getCommonFriends(id, otherId);
+    }
+
+    @GetMapping("/{id}/distance/{otherId}")
+    public FriendPath getDistance(@PathVariable long id, @PathVariable long otherId,
+                                  @RequestParam(defaultValue = "6") int maxDepth) {
+        return userService.getDistance(id, otherId, maxDepth);
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.dal;
+
+// Получатель пар id (фильм—пользователь, пользователь—друг) при потоковой выгрузке связей.
+@FunctionalInterface
+public interface EdgeSink {
+    void accept(long from, long to);
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Выгрузка всех связей одной таблицы: ResultSet только вперёд, строки уходят в EdgeSink по одной.
+// В H2 результат по умолчанию собирается целиком (при большом объёме — во временный файл),
+// поэтому на время запроса сеанс переводится в ленивое выполнение и строки читаются по мере обхода индекса.
+final class EdgeStreams {
+    static final int FETCH_SIZE = 10_000;
+
+    private EdgeStreams() {
+    }
+
+    static void forEach(JdbcTemplate jdbcTemplate, String sql, EdgeSink sink) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            setLazy(connection, true);
+            try (PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        sink.accept(rs.getLong(1), rs.getLong(2));
+                    }
+                }
+            } finally {
+                setLazy(connection, false);
+            }
+            return null;
+        });
+    }
+
+    private static void setLazy(Connection connection, boolean lazy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + lazy);
+        }
+    }
+}
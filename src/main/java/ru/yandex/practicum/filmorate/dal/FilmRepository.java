@@ -1,33 +1,50 @@
 package ru.yandex.practicum.filmorate.dal;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.dal.inmemory.EdgeIndex;
 import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
 import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeCount;
+import ru.yandex.practicum.filmorate.model.Mpa;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 @Repository
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc", matchIfMissing = true)
 @Slf4j
-public class FilmRepository {
+public class FilmRepository implements FilmStorage {
 
     private static final String FIND_ALL_QUERY = """
                 SELECT
@@ -37,9 +54,12 @@ public class FilmRepository {
                     f.release_date,
                     f.duration,
                     f.mpa_id,
+                    f.genre_mask,
+                    f.version,
                     m.name as mpa_name
                 FROM films f
                 LEFT JOIN mpa_rating m ON f.mpa_id = m.rating_id
+                WHERE NOT f.deleted
             """;
 
     private static final String FIND_BY_ID_QUERY = """
@@ -50,32 +70,66 @@ public class FilmRepository {
                     f.release_date,
                     f.duration,
                     f.mpa_id,
+                    f.genre_mask,
+                    f.version,
                     m.name as mpa_name
                 FROM films f
                 LEFT JOIN mpa_rating m ON f.mpa_id = m.rating_id
-                WHERE f.film_id = ?
+                WHERE f.film_id = ? AND NOT f.deleted
             """;
 
+    private static final String FIND_BY_IDS_QUERY = FIND_ALL_QUERY + " AND f.film_id = ANY(?)";
+
     private static final String INSERT_QUERY =
-            "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+            "INSERT INTO films (name, description, release_date, duration, mpa_id, genre_mask) VALUES (?, ?, ?, ?, ?, ?)";
 
+    // Строка не переписывается, если ни одно поле не изменилось: версия растёт только при настоящих изменениях.
+    // Новая версия возвращается тем же запросом, без отдельного чтения после обновления.
     private static final String UPDATE_QUERY = """
+                SELECT version FROM FINAL TABLE (
                 UPDATE films
-                SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ?
-                WHERE film_id = ?
+                SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ?, genre_mask = ?,
+                    version = version + 1
+                WHERE film_id = ? AND NOT deleted
+                  AND (name, description, release_date, duration, mpa_id, genre_mask)
+                      IS DISTINCT FROM (?, ?, ?, ?, ?, ?)
             """;
 
+    private static final String UPDATE_UNVERSIONED_QUERY = UPDATE_QUERY + ")";
+
+    private static final String UPDATE_VERSIONED_QUERY = UPDATE_QUERY + " AND version = ?)";
+
+    private static final String FIND_VERSION_QUERY = "SELECT version FROM films WHERE film_id = ? AND NOT deleted";
+
+    // Внешний ключ не отличает мягко удалённые строки, поэтому лайк пишется только для живых фильма и пользователя;
+    // 0 изменённых строк означает, что одного из них нет.
     private static final String ADD_LIKE_QUERY = """
-            INSERT INTO likes (user_id, film_id)
-            SELECT ?, ? WHERE NOT EXISTS (
-                SELECT 1 FROM likes WHERE user_id = ? AND film_id = ?
-            )
+            MERGE INTO likes (user_id, film_id) KEY (user_id, film_id)
+            SELECT u.user_id, f.film_id
+            FROM users u, films f
+            WHERE u.user_id = ? AND NOT u.deleted AND f.film_id = ? AND NOT f.deleted
             """;
 
+    private static final String COUNT_USERS_QUERY =
+            "SELECT COUNT(*) FROM users WHERE user_id = ANY(?) AND NOT deleted";
+
     private static final String REMOVE_LIKE_QUERY = "DELETE FROM likes WHERE user_id = ? AND film_id = ?";
 
-    private static final String GET_LIKES_COUNT_QUERY = "SELECT COUNT(*) FROM likes WHERE film_id = ?";
-    private static final String GET_LIKED_USERS_QUERY = "SELECT user_id FROM likes WHERE film_id = ?";
+    private static final String COUNT_LIKES_QUERY =
+            "SELECT film_id, COUNT(*) AS like_count FROM likes WHERE film_id = ANY(?) GROUP BY film_id";
+
+    private static final String FIND_LIKERS_QUERY = "SELECT film_id, user_id FROM likes WHERE film_id = ANY(?)";
+
+    // Лайки мягко удалённых фильмов и пользователей лежат до фоновой очистки, но наружу не выдаются.
+    private static final String EXPORT_LIKES_QUERY = """
+            SELECT l.film_id, l.user_id
+            FROM likes l
+            INNER JOIN films f ON f.film_id = l.film_id
+            INNER JOIN users u ON u.user_id = l.user_id
+            WHERE NOT f.deleted AND NOT u.deleted
+            """;
+
+    private static final String FIND_DELETED_USER_IDS_QUERY = "SELECT user_id FROM users WHERE deleted";
 
     private static final String GET_POPULAR_FILMS_QUERY = """
             SELECT
@@ -85,9 +139,12 @@ public class FilmRepository {
                 f.release_date,
                 f.duration,
                 f.mpa_id,
+                f.genre_mask,
+                f.version,
                 m.name AS mpa_name
             FROM films f
             LEFT JOIN mpa_rating m ON f.mpa_id = m.rating_id
+            WHERE NOT f.deleted
             ORDER BY (
                 SELECT COUNT(*)
                 FROM likes l
@@ -96,70 +153,82 @@ public class FilmRepository {
             LIMIT ?
             """;
 
-    private static final String FIND_GENRES_BY_FILM_ID = """
-            SELECT g.genre_id, g.name
-            FROM film_genre fg
-            JOIN genres g ON fg.genre_id = g.genre_id
-            WHERE fg.film_id = ?
-            ORDER BY g.genre_id
+    private static final String FIND_REFERENCES_QUERY = """
+            SELECT 'MPA' AS kind, rating_id AS ref_id, name FROM mpa_rating WHERE rating_id = ?
+            UNION ALL
+            SELECT 'GENRE' AS kind, genre_id AS ref_id, name FROM genres WHERE genre_id = ANY(?)
             """;
 
-    private static final String DELETE_GENRES_BY_FILM_ID = "DELETE FROM film_genre WHERE film_id = ?";
-    private static final String INSERT_FILM_GENRE = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)";
+    private static final String FIND_FILM_IDS_EXCEPT_QUERY =
+            "SELECT film_id FROM films WHERE film_id <> ALL(?) AND NOT deleted ORDER BY film_id LIMIT ?";
+
+    private static final String MARK_DELETED_QUERY = "UPDATE films SET deleted = TRUE WHERE film_id = ? AND NOT deleted";
+
+    private static final String FIND_DELETED_IDS_QUERY = "SELECT film_id FROM films WHERE deleted ORDER BY film_id";
+
+    private static final String FIND_FILM_LIKES_CHUNK_QUERY =
+            "SELECT like_id, user_id FROM likes WHERE film_id = ? FETCH FIRST ? ROWS ONLY";
+
+    private static final String FIND_USER_LIKES_CHUNK_QUERY =
+            "SELECT like_id, film_id FROM likes WHERE user_id = ? FETCH FIRST ? ROWS ONLY";
+
+    private static final String DELETE_LIKES_BY_IDS_QUERY = "DELETE FROM likes WHERE like_id = ANY(?)";
+
+    private static final String HARD_DELETE_QUERY = "DELETE FROM films WHERE film_id = ? AND deleted";
+
+    private static final String UPDATE_GENRE_MASK =
+            "UPDATE films SET genre_mask = ?, version = version + 1 WHERE film_id = ? AND genre_mask <> ?";
 
     private final JdbcTemplate jdbcTemplate;
     private final FilmRowMapper filmRowMapper;
+    private final MpaRowMapper mpaRowMapper;
     private final GenreRowMapper genreRowMapper;
-    private final MpaRepository mpaRepository;
-    private final GenreRepository genreRepository;
+    private final HydrationExecutor hydrationExecutor;
+    private final EdgeIndex edgeIndex;
+    private final LikeShards likeShards;
 
     public FilmRepository(JdbcTemplate jdbcTemplate,
                           FilmRowMapper filmRowMapper,
+                          MpaRowMapper mpaRowMapper,
                           GenreRowMapper genreRowMapper,
-                          MpaRepository mpaRepository,
-                          GenreRepository genreRepository) {
+                          HydrationExecutor hydrationExecutor,
+                          Optional<EdgeIndex> edgeIndex,
+                          Optional<LikeShards> likeShards) {
         this.jdbcTemplate = jdbcTemplate;
         this.filmRowMapper = filmRowMapper;
+        this.mpaRowMapper = mpaRowMapper;
         this.genreRowMapper = genreRowMapper;
-        this.mpaRepository = mpaRepository;
-        this.genreRepository = genreRepository;
+        this.hydrationExecutor = hydrationExecutor;
+        this.edgeIndex = edgeIndex.orElse(null);
+        this.likeShards = likeShards.orElse(null);
     }
 
+    @Override
     public List<Film> findAll() {
         List<Film> films = jdbcTemplate.query(FIND_ALL_QUERY, filmRowMapper);
-        loadGenresForFilms(films);
-        for (Film film : films) {
-            loadLikesForFilm(film);
-        }
+        loadLikesForFilms(films);
         return films;
     }
 
-    public Film create(Film film) {
-        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-
-        if (film.getMpa() == null || film.getMpa().getId() == null) {
-            throw new ValidationException("Рейтинг MPA обязателен");
-        }
-        if (mpaRepository.findById(film.getMpa().getId()).isEmpty()) {
-            throw new NotFoundException("Рейтинг MPA с id=" + film.getMpa().getId() + " не найден");
+    @Override
+    public List<Film> findAllById(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        if (film.getGenreIds() != null && !film.getGenreIds().isEmpty()) {
-            Set<Integer> uniqueGenreIds = new HashSet<>(film.getGenreIds());
-            List<Genre> existingGenres = genreRepository.findAllById(uniqueGenreIds);
-
-            if (existingGenres.size() != uniqueGenreIds.size()) {
-                Set<Integer> existingIds = existingGenres.stream()
-                        .map(Genre::getId)
-                        .collect(Collectors.toSet());
-
-                Set<Integer> notFoundIds = new HashSet<>(uniqueGenreIds);
-                notFoundIds.removeAll(existingIds);
-
-                throw new NotFoundException("Жанры с id=" + notFoundIds + " не найдены");
-            }
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Object[] chunk : SqlArrays.chunkedArrayArguments(ids)) {
+            films.addAll(jdbcTemplate.query(FIND_BY_IDS_QUERY, filmRowMapper, chunk));
         }
+        loadLikesForFilms(films);
+        return films;
+    }
+
+    @Override
+    public Film create(Film film) {
+        resolveReferences(film);
 
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
         int rowsAffected = jdbcTemplate.update(connection -> {
             PreparedStatement ps = connection.prepareStatement(INSERT_QUERY, Statement.RETURN_GENERATED_KEYS);
             ps.setString(1, film.getName());
@@ -167,6 +236,7 @@ public class FilmRepository {
             ps.setTimestamp(3, Timestamp.valueOf(film.getReleaseDate().atStartOfDay()));
             ps.setLong(4, film.getDuration());
             ps.setInt(5, film.getMpa().getId());
+            ps.setLong(6, GenreMask.encode(film.getGenreIds()));
             return ps;
         }, keyHolder);
 
@@ -180,191 +250,396 @@ public class FilmRepository {
         }
 
         film.setId(id);
-        updateGenres(id, film.getGenreIds());
+        film.setVersion(0L);
+        film.setRate(0L);
+        film.setUserIds(new HashSet<>());
 
         return film;
     }
 
+    @Override
     public Film get(long id) {
         Film film = jdbcTemplate.queryForObject(FIND_BY_ID_QUERY, filmRowMapper, id);
-        loadGenresForFilm(film);
-        loadLikesForFilm(film);
+        loadLikesForFilms(List.of(film));
         return film;
     }
 
+    @Override
     public Film update(Film film) {
-        if (film.getMpa() == null || film.getMpa().getId() == null) {
-            throw new ValidationException("Рейтинг MPA обязателен");
-        }
-        if (mpaRepository.findById(film.getMpa().getId()).isEmpty()) {
-            throw new NotFoundException("Рейтинг MPA с id=" + film.getMpa().getId() + " не найден");
-        }
-
-        if (film.getGenreIds() != null && !film.getGenreIds().isEmpty()) {
-            Set<Integer> uniqueGenreIds = new HashSet<>(film.getGenreIds());
-
-            List<Genre> existingGenres = genreRepository.findAllById(uniqueGenreIds);
-
-            if (existingGenres.size() != uniqueGenreIds.size()) {
-                Set<Integer> existingIds = existingGenres.stream()
-                        .map(Genre::getId)
-                        .collect(Collectors.toSet());
+        resolveReferences(film);
 
-                Set<Integer> notFoundIds = new HashSet<>(uniqueGenreIds);
-                notFoundIds.removeAll(existingIds);
-
-                throw new NotFoundException("Жанры с id=" + notFoundIds + " не найдены");
-            }
-        }
-
-        int rowsUpdated = jdbcTemplate.update(UPDATE_QUERY,
+        Object[] values = {
                 film.getName(),
                 film.getDescription(),
                 Timestamp.valueOf(film.getReleaseDate().atStartOfDay()),
                 film.getDuration(),
                 film.getMpa().getId(),
-                film.getId()
-        );
-
-        if (rowsUpdated == 0) {
-            throw new InternalServerException("Не удалось обновить данные");
+                GenreMask.encode(film.getGenreIds())
+        };
+        List<Object> arguments = new ArrayList<>(List.of(values));
+        arguments.add(film.getId());
+        arguments.addAll(List.of(values));
+        if (film.getVersion() != null) {
+            arguments.add(film.getVersion());
+        }
+        List<Long> updatedVersion = jdbcTemplate.queryForList(
+                film.getVersion() != null ? UPDATE_VERSIONED_QUERY : UPDATE_UNVERSIONED_QUERY,
+                Long.class, arguments.toArray());
+        if (!updatedVersion.isEmpty()) {
+            film.setVersion(updatedVersion.getFirst());
+            return film;
         }
 
-        updateGenres(film.getId(), film.getGenreIds());
-
+        // Строка не обновилась: по текущей версии видно, чем это вызвано — удалением фильма,
+        // чужим изменением или тем, что фильм не изменился.
+        List<Long> currentVersion = jdbcTemplate.queryForList(FIND_VERSION_QUERY, Long.class, film.getId());
+        if (currentVersion.isEmpty()) {
+            throw new NotFoundException("Film with id=" + film.getId() + " not found");
+        }
+        if (film.getVersion() != null && !film.getVersion().equals(currentVersion.getFirst())) {
+            throw new VersionConflictException("Фильм id=" + film.getId() + " уже изменён: текущая версия "
+                    + currentVersion.getFirst() + ", в запросе " + film.getVersion());
+        }
+        film.setVersion(currentVersion.getFirst());
         return film;
     }
 
+    @Override
     public void addLike(long filmId, long userId) {
-        jdbcTemplate.update(ADD_LIKE_QUERY, userId, filmId, userId, filmId);
+        if (likeShards != null) {
+            // Внешних ключей на films/users у шардов нет, поэтому ссылки проверяются в основной базе.
+            if (!exists(filmId)) {
+                throw new NotFoundException("Film with id=" + filmId + " not found");
+            }
+            if (!userExists(userId)) {
+                throw new NotFoundException("User with id=" + userId + " not found");
+            }
+            likeShards.addLike(filmId, userId);
+            return;
+        }
+        if (jdbcTemplate.update(ADD_LIKE_QUERY, userId, filmId) == 0) {
+            throw likeTargetNotFound(filmId, List.of(userId));
+        }
+        if (edgeIndex != null) {
+            afterCommit(() -> edgeIndex.addLike(filmId, userId));
+        }
+    }
+
+    // Все строки пачки относятся к одному фильму, поэтому уходят одним batch-запросом в одну базу или шард;
+    // одна транзакция на пачку вместо коммита на каждую строку ускоряет запись в несколько раз.
+    @Override
+    @Transactional
+    public void addLikes(long filmId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        if (likeShards != null) {
+            if (!exists(filmId)) {
+                throw new NotFoundException("Film with id=" + filmId + " not found");
+            }
+            Integer found = jdbcTemplate.queryForObject(COUNT_USERS_QUERY, Integer.class,
+                    (Object) userIds.toArray(Long[]::new));
+            if (found == null || found < userIds.size()) {
+                throw new NotFoundException("Не все пользователи найдены: " + userIds);
+            }
+            likeShards.addLikes(filmId, userIds);
+            return;
+        }
+        int[][] rowsMerged = jdbcTemplate.batchUpdate(ADD_LIKE_QUERY, userIds, userIds.size(), (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, filmId);
+        });
+        for (int rows : rowsMerged[0]) {
+            if (rows == 0) {
+                throw likeTargetNotFound(filmId, userIds);
+            }
+        }
+        if (edgeIndex != null) {
+            List<Long> addedUserIds = List.copyOf(userIds);
+            afterCommit(() -> addedUserIds.forEach(userId -> edgeIndex.addLike(filmId, userId)));
+        }
     }
 
+    @Override
     public void removeLike(long filmId, long userId) {
-        int rowsDeleted = jdbcTemplate.update(REMOVE_LIKE_QUERY, userId, filmId);
+        int rowsDeleted = likeShards != null
+                ? likeShards.removeLike(filmId, userId)
+                : jdbcTemplate.update(REMOVE_LIKE_QUERY, userId, filmId);
+        if (edgeIndex != null) {
+            edgeIndex.removeLike(filmId, userId);
+        }
         if (rowsDeleted == 0) {
+            if (!exists(filmId)) {
+                throw new NotFoundException("Film with id=" + filmId + " not found");
+            }
+            if (!userExists(userId)) {
+                throw new NotFoundException("User with id=" + userId + " not found");
+            }
             log.debug("Лайк не найден для удаления: filmId={}, userId={}", filmId, userId);
         }
     }
 
+    @Override
     public List<Film> getPopularFilms(int count) {
+        if (likeShards != null) {
+            return getPopularFilmsFromShards(count);
+        }
         List<Film> films = jdbcTemplate.query(GET_POPULAR_FILMS_QUERY, filmRowMapper, count);
 
         if (films.isEmpty()) return films;
 
-        loadGenresForFilms(films);
-        List<Long> filmIds = films.stream().map(Film::getId).toList();
+        loadLikesForFilms(films);
 
-        String inClause = String.join(",", Collections.nCopies(filmIds.size(), "?"));
-        String countQuery = "SELECT film_id, COUNT(*) AS like_count FROM likes WHERE film_id IN (" + inClause + ") GROUP BY film_id";
+        return films;
+    }
 
-        Map<Long, Long> likesCountMap = jdbcTemplate.query(countQuery, rs -> {
-            Map<Long, Long> map = new HashMap<>();
-            while (rs.next()) {
-                map.put(rs.getLong("film_id"), rs.getLong("like_count"));
+    @Override
+    public Map<Long, Long> countLikes(Collection<Long> filmIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return counts;
+        }
+        if (edgeIndex != null) {
+            for (Long filmId : filmIds) {
+                counts.put(filmId, (long) edgeIndex.likers(filmId).length);
             }
-            return map;
-        }, filmIds.toArray());
-
-        String usersQuery = "SELECT film_id, user_id FROM likes WHERE film_id IN (" + inClause + ")";
-        Map<Long, Set<Long>> likedUsersMap = new HashMap<>();
-        jdbcTemplate.query(usersQuery, rs -> {
-            while (rs.next()) {
-                long filmId = rs.getLong("film_id");
-                long userId = rs.getLong("user_id");
-                likedUsersMap.computeIfAbsent(filmId, k -> new HashSet<>()).add(userId);
+            return counts;
+        }
+        if (likeShards != null) {
+            counts.putAll(likeShards.countLikes(filmIds));
+            for (Long filmId : filmIds) {
+                counts.putIfAbsent(filmId, 0L);
             }
-        }, filmIds.toArray());
+            return counts;
+        }
 
-        for (Film film : films) {
-            film.setRate(likesCountMap.getOrDefault(film.getId(), 0L));
-            film.setUserIds(likedUsersMap.getOrDefault(film.getId(), new HashSet<>()));
+        for (Object[] chunk : SqlArrays.chunkedArrayArguments(filmIds)) {
+            jdbcTemplate.query(COUNT_LIKES_QUERY, rs -> {
+                counts.put(rs.getLong("film_id"), rs.getLong("like_count"));
+            }, chunk);
+        }
+        for (Long filmId : filmIds) {
+            counts.putIfAbsent(filmId, 0L);
+        }
+        return counts;
+    }
+
+    // Шарды возвращают точный top-N по лайкам; если фильмов с лайками меньше count,
+    // список добивается фильмами без лайков в порядке id, как и при сортировке в одной базе.
+    private List<Film> getPopularFilmsFromShards(int count) {
+        // Шарды не знают о мягком удалении: лайки удалённого фильма лежат в них до окончания очистки.
+        // Топ запрашивается с запасом на число удалённых фильмов, и они вычёркиваются до добивки.
+        Set<Long> deletedIds = new HashSet<>(findDeletedIds());
+        List<Long> rankedIds = likeShards.topFilms(count + deletedIds.size()).stream()
+                .map(LikeCount::getFilmId)
+                .filter(filmId -> !deletedIds.contains(filmId))
+                .limit(count)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (rankedIds.size() < count) {
+            rankedIds.addAll(jdbcTemplate.queryForList(FIND_FILM_IDS_EXCEPT_QUERY, Long.class,
+                    rankedIds.toArray(), count - rankedIds.size()));
         }
 
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < rankedIds.size(); i++) {
+            rank.put(rankedIds.get(i), i);
+        }
+        List<Film> films = findAllById(rankedIds);
+        films.sort(Comparator.comparingInt(film -> rank.get(film.getId())));
         return films;
     }
 
-    public void loadGenresForFilm(Film film) {
-        if (film == null || film.getId() == null) {
+    @Override
+    public void forEachLike(EdgeSink sink) {
+        if (likeShards != null) {
+            // Шарды не видят флаг deleted; удалённых, но ещё не очищенных записей немного.
+            Set<Long> deletedFilmIds = new HashSet<>(findDeletedIds());
+            Set<Long> deletedUserIds =
+                    new HashSet<>(jdbcTemplate.queryForList(FIND_DELETED_USER_IDS_QUERY, Long.class));
+            likeShards.forEachLike((filmId, userId) -> {
+                if (!deletedFilmIds.contains(filmId) && !deletedUserIds.contains(userId)) {
+                    sink.accept(filmId, userId);
+                }
+            });
             return;
         }
+        EdgeStreams.forEach(jdbcTemplate, EXPORT_LIKES_QUERY, sink);
+    }
 
-        List<Genre> genres = jdbcTemplate.query(
-                FIND_GENRES_BY_FILM_ID,
-                genreRowMapper,
-                film.getId()
-        );
-        film.setGenres(new LinkedHashSet<>(genres));
+    @Override
+    public boolean markDeleted(long filmId) {
+        return jdbcTemplate.update(MARK_DELETED_QUERY, filmId) > 0;
     }
 
-    public void loadGenresForFilms(List<Film> films) {
-        if (films.isEmpty()) {
-            return;
+    @Override
+    public List<Long> findDeletedIds() {
+        return jdbcTemplate.queryForList(FIND_DELETED_IDS_QUERY, Long.class);
+    }
+
+    // Каждая пачка — отдельные короткие операторы: строки выбираются по индексу film_id и удаляются по ключам,
+    // поэтому блокировки держатся недолго, а индекс связей обновляется по тем же строкам.
+    @Override
+    public int purgeChunk(long filmId, int limit) {
+        if (likeShards != null) {
+            return likeShards.purgeLikesOfFilm(filmId, limit);
         }
+        return deleteLikes(FIND_FILM_LIKES_CHUNK_QUERY, filmId, limit, this::edgeIndexRemoveLike);
+    }
 
-        List<Long> filmIds = films.stream()
-                .map(Film::getId)
-                .filter(Objects::nonNull)
-                .toList();
+    @Override
+    public int purgeLikesOfUser(long userId, int limit, LongConsumer changedFilm) {
+        if (likeShards != null) {
+            return likeShards.purgeLikesOfUser(userId, limit, changedFilm);
+        }
+        return deleteLikes(FIND_USER_LIKES_CHUNK_QUERY, userId, limit, (likerId, filmId) -> {
+            edgeIndexRemoveLike(filmId, likerId);
+            changedFilm.accept(filmId);
+        });
+    }
 
-        if (filmIds.isEmpty()) {
-            return;
+    // Лайки, поставленные после последней пачки, удаляет ON DELETE CASCADE вместе с фильмом.
+    @Override
+    public void hardDelete(long filmId) {
+        jdbcTemplate.update(HARD_DELETE_QUERY, filmId);
+    }
+
+    private int deleteLikes(String chunkQuery, long ownerId, int limit, EdgeSink deletedRows) {
+        List<long[]> rows = jdbcTemplate.query(chunkQuery,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, ownerId, limit);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Long[] likeIds = new Long[rows.size()];
+        for (int i = 0; i < likeIds.length; i++) {
+            likeIds[i] = rows.get(i)[0];
         }
+        jdbcTemplate.update(DELETE_LIKES_BY_IDS_QUERY, (Object) likeIds);
+        rows.forEach(row -> deletedRows.accept(ownerId, row[1]));
+        return rows.size();
+    }
 
-        String inClause = String.join(",", Collections.nCopies(filmIds.size(), "?"));
-        String query = """
-                SELECT fg.film_id, g.genre_id, g.name
-                FROM film_genre fg
-                JOIN genres g ON fg.genre_id = g.genre_id
-                WHERE fg.film_id IN (%s)
-                ORDER BY fg.film_id, g.genre_id
-                """.formatted(inClause);
-
-        Map<Long, Set<Genre>> genresByFilmId = new HashMap<>();
-        jdbcTemplate.query(query, rs -> {
-            while (rs.next()) {
-                long filmId = rs.getLong("film_id");
-                Genre genre = genreRowMapper.mapRow(rs, 0);
-                genresByFilmId.computeIfAbsent(filmId, k -> new LinkedHashSet<>()).add(genre);
+    // Индекс связей не откатывается вместе с транзакцией, поэтому меняется только после её фиксации.
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
             }
-        }, filmIds.toArray());
+        });
+    }
 
-        for (Film film : films) {
-            film.setGenres(genresByFilmId.getOrDefault(film.getId(), new LinkedHashSet<>()));
+    private NotFoundException likeTargetNotFound(long filmId, Collection<Long> userIds) {
+        if (!exists(filmId)) {
+            return new NotFoundException("Film with id=" + filmId + " not found");
+        }
+        return userIds.size() == 1
+                ? new NotFoundException("User with id=" + userIds.iterator().next() + " not found")
+                : new NotFoundException("Не все пользователи найдены: " + userIds);
+    }
+
+    private void edgeIndexRemoveLike(long filmId, long userId) {
+        if (edgeIndex != null) {
+            edgeIndex.removeLike(filmId, userId);
         }
     }
 
     public void updateGenres(Long filmId, Set<Integer> genreIds) {
-        jdbcTemplate.update(DELETE_GENRES_BY_FILM_ID, filmId);
-        if (genreIds != null && !genreIds.isEmpty()) {
-            for (Integer genreId : genreIds) {
-                jdbcTemplate.update(INSERT_FILM_GENRE, filmId, genreId);
+        long genreMask = GenreMask.encode(genreIds);
+        jdbcTemplate.update(UPDATE_GENRE_MASK, genreMask, filmId, genreMask);
+    }
+
+    private void resolveReferences(Film film) {
+        if (film.getMpa() == null || film.getMpa().getId() == null) {
+            throw new ValidationException("Рейтинг MPA обязателен");
+        }
+        int mpaId = film.getMpa().getId();
+        Set<Integer> genreIds = film.getGenreIds();
+
+        Map<Integer, Genre> foundGenres = new TreeMap<>();
+        Mpa[] foundMpa = new Mpa[1];
+        jdbcTemplate.query(FIND_REFERENCES_QUERY, rs -> {
+            int refId = rs.getInt("ref_id");
+            String name = rs.getString("name");
+            if ("MPA".equals(rs.getString("kind"))) {
+                foundMpa[0] = mpaRowMapper.canonical(refId, name);
+            } else {
+                foundGenres.put(refId, genreRowMapper.canonical(refId, name));
             }
+        }, mpaId, genreIds.toArray());
+
+        if (foundMpa[0] == null) {
+            throw new NotFoundException("Неизвестный рейтинг MPA: " + mpaId);
         }
+        if (foundGenres.size() != genreIds.size()) {
+            Set<Integer> notFoundIds = new TreeSet<>(genreIds);
+            notFoundIds.removeAll(foundGenres.keySet());
+            throw new NotFoundException("Жанры не найдены: " + notFoundIds);
+        }
+
+        film.setMpa(foundMpa[0]);
+        film.setGenres(Collections.unmodifiableSet(new LinkedHashSet<>(foundGenres.values())));
     }
 
-    private void loadLikesForFilm(Film film) {
-        if (film == null || film.getId() == null) {
+    private void loadLikesForFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+
+        if (edgeIndex != null) {
+            for (Film film : films) {
+                long[] likerIds = edgeIndex.likers(film.getId());
+                Set<Long> userIds = new HashSet<>(likerIds.length);
+                for (long likerId : likerIds) {
+                    userIds.add(likerId);
+                }
+                film.setUserIds(userIds);
+                film.setRate((long) likerIds.length);
+            }
+            return;
+        }
+
+        List<Long> filmIds = films.stream().map(Film::getId).toList();
+        if (likeShards != null) {
+            Map<Long, Set<Long>> likers = likeShards.findLikers(filmIds);
+            for (Film film : films) {
+                Set<Long> userIds = likers.getOrDefault(film.getId(), new HashSet<>());
+                film.setUserIds(userIds);
+                film.setRate((long) userIds.size());
+            }
             return;
         }
 
-        Long count = jdbcTemplate.queryForObject(
-                GET_LIKES_COUNT_QUERY,
-                Long.class,
-                film.getId()
-        );
-        film.setRate(count != null ? count : 0L);
+        // Части не пересекаются по film_id, поэтому каждый набор лайков заполняет только одна задача.
+        Map<Long, Set<Long>> likedUsersMap = new ConcurrentHashMap<>();
+        List<Runnable> tasks = new ArrayList<>();
+        for (Object[] chunk : SqlArrays.chunkedArrayArguments(filmIds, hydrationExecutor.getChunkSize())) {
+            tasks.add(() -> jdbcTemplate.query(FIND_LIKERS_QUERY, rs -> {
+                likedUsersMap.computeIfAbsent(rs.getLong("film_id"), k -> new HashSet<>()).add(rs.getLong("user_id"));
+            }, chunk));
+        }
+        hydrationExecutor.runAll(tasks);
 
-        List<Long> userIds = jdbcTemplate.queryForList(
-                GET_LIKED_USERS_QUERY,
-                Long.class,
-                film.getId()
-        );
-        film.setUserIds(new HashSet<>(userIds));
+        for (Film film : films) {
+            Set<Long> userIds = likedUsersMap.getOrDefault(film.getId(), new HashSet<>());
+            film.setUserIds(userIds);
+            film.setRate((long) userIds.size());
+        }
     }
 
+    @Override
     public boolean exists(long id) {
-        String sql = "SELECT COUNT(*) FROM films WHERE film_id = ?";
+        String sql = "SELECT COUNT(*) FROM films WHERE film_id = ? AND NOT deleted";
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
         return count != null && count > 0;
     }
+
+    private boolean userExists(long userId) {
+        String sql = "SELECT COUNT(*) FROM users WHERE user_id = ? AND NOT deleted";
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, userId);
+        return count != null && count > 0;
+    }
 }
\ No newline at end of file
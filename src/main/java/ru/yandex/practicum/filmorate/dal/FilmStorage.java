@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+public interface FilmStorage {
+
+    List<Film> findAll();
+
+    List<Film> findAllById(Collection<Long> ids);
+
+    Film create(Film film);
+
+    Film get(long id);
+
+    Film update(Film film);
+
+    void addLike(long filmId, long userId);
+
+    // Пачка лайков одного фильма; при неизвестном фильме или пользователе часть пачки может быть уже записана.
+    void addLikes(long filmId, Collection<Long> userIds);
+
+    void removeLike(long filmId, long userId);
+
+    List<Film> getPopularFilms(int count);
+
+    Map<Long, Long> countLikes(Collection<Long> filmIds);
+
+    boolean exists(long id);
+
+    void forEachLike(EdgeSink sink);
+
+    // Мягкое удаление: фильм сразу перестаёт читаться, а лайки и сам фильм удаляет фоновая очистка.
+    boolean markDeleted(long filmId);
+
+    List<Long> findDeletedIds();
+
+    // Удаляет не больше limit строк, связанных с удалённым фильмом; 0 — таких строк не осталось.
+    int purgeChunk(long filmId, int limit);
+
+    // Удаляет не больше limit лайков пользователя; changedFilm получает фильмы, у которых изменилось число лайков.
+    int purgeLikesOfUser(long userId, int limit, LongConsumer changedFilm);
+
+    void hardDelete(long filmId);
+}
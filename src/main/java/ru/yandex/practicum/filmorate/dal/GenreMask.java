@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Collection;
+
+// Жанры фильма хранятся в films.genre_mask: жанр с id = n — это бит (n - 1), поэтому id ограничены 1..64.
+// Фильтр по жанру в SQL — BITAND(genre_mask, CAST(? AS BIGINT)) <> 0 с параметром bit(genreId).
+public final class GenreMask {
+    public static final int MAX_GENRE_ID = Long.SIZE;
+
+    private GenreMask() {
+    }
+
+    public static long bit(int genreId) {
+        if (genreId < 1 || genreId > MAX_GENRE_ID) {
+            throw new ValidationException("Жанр с id=" + genreId + " не помещается в маску жанров (1.."
+                    + MAX_GENRE_ID + ")");
+        }
+        return 1L << (genreId - 1);
+    }
+
+    public static long encode(Collection<Integer> genreIds) {
+        long mask = 0;
+        for (Integer genreId : genreIds) {
+            mask |= bit(genreId);
+        }
+        return mask;
+    }
+
+    public static int[] decode(long mask) {
+        int[] genreIds = new int[Long.bitCount(mask)];
+        int index = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            genreIds[index++] = Long.numberOfTrailingZeros(rest) + 1;
+        }
+        return genreIds;
+    }
+}
@@ -1,19 +1,22 @@
 package ru.yandex.practicum.filmorate.dal;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc", matchIfMissing = true)
 @RequiredArgsConstructor
-public class GenreRepository {
+public class GenreRepository implements GenreStorage {
 
     private final JdbcTemplate jdbcTemplate;
     private final GenreRowMapper genreRowMapper;
@@ -24,10 +27,15 @@ public class GenreRepository {
     private static final String FIND_BY_ID_QUERY =
             "SELECT genre_id, name FROM genres WHERE genre_id = ?";
 
+    private static final String FIND_ALL_BY_ID_QUERY =
+            "SELECT genre_id, name FROM genres WHERE genre_id = ANY(?) ORDER BY genre_id";
+
+    @Override
     public List<Genre> findAll() {
         return jdbcTemplate.query(FIND_ALL_QUERY, genreRowMapper);
     }
 
+    @Override
     public Optional<Genre> findById(int id) {
         try {
             Genre genre = jdbcTemplate.queryForObject(FIND_BY_ID_QUERY, genreRowMapper, id);
@@ -37,14 +45,16 @@ public class GenreRepository {
         }
     }
 
+    @Override
     public List<Genre> findAllById(Collection<Integer> ids) {
         if (ids == null || ids.isEmpty()) {
             return Collections.emptyList();
         }
 
-        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
-        String sql = "SELECT * FROM genres WHERE genre_id IN (" + placeholders + ")";
-
-        return jdbcTemplate.query(sql, genreRowMapper, ids.toArray());
+        List<Genre> genres = new ArrayList<>(ids.size());
+        for (Object[] chunk : SqlArrays.chunkedArrayArguments(ids)) {
+            genres.addAll(jdbcTemplate.query(FIND_ALL_BY_ID_QUERY, genreRowMapper, chunk));
+        }
+        return genres;
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface GenreStorage {
+
+    List<Genre> findAll();
+
+    Optional<Genre> findById(int id);
+
+    List<Genre> findAllById(Collection<Integer> ids);
+}
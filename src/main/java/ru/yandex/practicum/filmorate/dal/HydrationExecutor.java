@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// Независимые запросы догрузки (например, части списка лайкнувших) выполняются параллельно на виртуальных потоках,
+// каждый со своим соединением из пула. Не больше maxParallelism запросов одного вызова идут одновременно,
+// чтобы один большой список не занял весь пул. Внутри транзакции запросы идут последовательно в её соединении:
+// другие соединения не видят её незафиксированных изменений.
+@Component
+public class HydrationExecutor {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxParallelism;
+    private final int chunkSize;
+
+    public HydrationExecutor(@Value("${filmorate.hydration.max-parallelism:4}") int maxParallelism,
+                             @Value("${filmorate.hydration.chunk-size:1000}") int chunkSize) {
+        if (maxParallelism < 1 || chunkSize < 1 || chunkSize > SqlArrays.MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("Некорректные параметры догрузки: max-parallelism="
+                    + maxParallelism + ", chunk-size=" + chunkSize);
+        }
+        this.maxParallelism = maxParallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void runAll(List<Runnable> tasks) {
+        if (tasks.size() <= 1 || maxParallelism == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+
+        Semaphore permits = new Semaphore(maxParallelism);
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        await(futures);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static void await(List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Догрузка данных прервана", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtimeException
+                            ? runtimeException : new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
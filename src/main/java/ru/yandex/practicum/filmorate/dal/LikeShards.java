@@ -0,0 +1,216 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.inmemory.EdgeIndex;
+import ru.yandex.practicum.filmorate.model.LikeCount;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+// Лайки разнесены по N независимым базам H2 по хэшу film_id: все лайки фильма лежат в одном шарде,
+// поэтому лайкнувшие и число лайков читаются из одного шарда, а top-N каждого шарда точен
+// и глобальный top-N получается слиянием этих списков. Ссылочную целостность с films/users
+// проверяет FilmRepository перед записью: внешние ключи между базами невозможны.
+@Slf4j
+@Component
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'jdbc' and ${filmorate.likes.shards:0} > 0")
+public class LikeShards {
+    private static final String CREATE_TABLE_QUERY = """
+            CREATE TABLE IF NOT EXISTS likes (
+                film_id BIGINT NOT NULL,
+                user_id BIGINT NOT NULL,
+                PRIMARY KEY (film_id, user_id)
+            )
+            """;
+    // Лайки удалённого пользователя лежат во всех шардах; без индекса каждая пачка читала бы шард целиком.
+    private static final String CREATE_USER_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS likes_user_id ON likes (user_id)";
+    private static final String ADD_LIKE_QUERY =
+            "MERGE INTO likes (film_id, user_id) KEY (film_id, user_id) VALUES (?, ?)";
+    private static final String REMOVE_LIKE_QUERY = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+    private static final String FIND_LIKERS_QUERY = "SELECT film_id, user_id FROM likes WHERE film_id = ANY(?)";
+    private static final String COUNT_LIKES_QUERY =
+            "SELECT film_id, COUNT(*) AS like_count FROM likes WHERE film_id = ANY(?) GROUP BY film_id";
+    private static final String EXPORT_LIKES_QUERY = "SELECT film_id, user_id FROM likes";
+    private static final String DELETE_FILM_LIKES_CHUNK_QUERY =
+            "DELETE FROM likes WHERE film_id = ? FETCH FIRST ? ROWS ONLY";
+    private static final String FIND_USER_LIKES_CHUNK_QUERY =
+            "SELECT film_id FROM likes WHERE user_id = ? FETCH FIRST ? ROWS ONLY";
+    private static final String DELETE_USER_LIKES_QUERY = "DELETE FROM likes WHERE user_id = ? AND film_id = ANY(?)";
+    private static final String TOP_FILMS_QUERY = """
+            SELECT film_id, COUNT(*) AS like_count
+            FROM likes
+            GROUP BY film_id
+            ORDER BY like_count DESC, film_id
+            LIMIT ?
+            """;
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final HydrationExecutor hydrationExecutor;
+
+    public LikeShards(@Value("${filmorate.likes.shards}") int shardCount,
+                      @Value("${filmorate.likes.shard-url:jdbc:h2:file:./db/likes-%d}") String urlTemplate,
+                      @Value("${filmorate.likes.shard-username:sa}") String username,
+                      @Value("${filmorate.likes.shard-password:password}") String password,
+                      @Value("${filmorate.likes.shard-pool-size:4}") int poolSize,
+                      HydrationExecutor hydrationExecutor,
+                      Optional<EdgeIndex> edgeIndex) {
+        if (edgeIndex.isPresent()) {
+            throw new IllegalStateException("filmorate.likes.shards нельзя включать вместе с filmorate.edge-index.enabled");
+        }
+        this.hydrationExecutor = hydrationExecutor;
+        for (int shard = 0; shard < shardCount; shard++) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urlTemplate.formatted(shard))
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSource.setPoolName("likes-shard-" + shard);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSources.add(dataSource);
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute(CREATE_TABLE_QUERY);
+            jdbcTemplate.execute(CREATE_USER_INDEX_QUERY);
+            shards.add(jdbcTemplate);
+        }
+        log.info("Лайки хранятся в {} шардах: {}", shardCount, urlTemplate);
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardFor(long filmId) {
+        // Перемешивание битов, чтобы последовательные id равномерно расходились по шардам при любом N.
+        long mixed = filmId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod(Long.hashCode(mixed ^ (mixed >>> 32)), shards.size());
+    }
+
+    public void addLike(long filmId, long userId) {
+        shard(filmId).update(ADD_LIKE_QUERY, filmId, userId);
+    }
+
+    public void addLikes(long filmId, Collection<Long> userIds) {
+        shard(filmId).batchUpdate(ADD_LIKE_QUERY, userIds, userIds.size(), (ps, userId) -> {
+            ps.setLong(1, filmId);
+            ps.setLong(2, userId);
+        });
+    }
+
+    public int removeLike(long filmId, long userId) {
+        return shard(filmId).update(REMOVE_LIKE_QUERY, filmId, userId);
+    }
+
+    public Map<Long, Set<Long>> findLikers(Collection<Long> filmIds) {
+        Map<Long, Set<Long>> likers = new ConcurrentHashMap<>();
+        hydrationExecutor.runAll(tasksByShard(filmIds, hydrationExecutor.getChunkSize(), (jdbcTemplate, chunk) ->
+                jdbcTemplate.query(FIND_LIKERS_QUERY, rs -> {
+                    likers.computeIfAbsent(rs.getLong("film_id"), k -> new HashSet<>()).add(rs.getLong("user_id"));
+                }, chunk)));
+        return likers;
+    }
+
+    public Map<Long, Long> countLikes(Collection<Long> filmIds) {
+        Map<Long, Long> counts = new ConcurrentHashMap<>();
+        hydrationExecutor.runAll(tasksByShard(filmIds, SqlArrays.MAX_ARRAY_LENGTH, (jdbcTemplate, chunk) ->
+                jdbcTemplate.query(COUNT_LIKES_QUERY, rs -> {
+                    counts.put(rs.getLong("film_id"), rs.getLong("like_count"));
+                }, chunk)));
+        return counts;
+    }
+
+    // Scatter-gather: каждый шард отдаёт свой top-N, общий top-N — лучшие N из объединения.
+    public List<LikeCount> topFilms(int count) {
+        List<LikeCount> candidates = new ArrayList<>();
+        List<Runnable> tasks = new ArrayList<>(shards.size());
+        for (JdbcTemplate jdbcTemplate : shards) {
+            tasks.add(() -> {
+                List<LikeCount> shardTop = jdbcTemplate.query(TOP_FILMS_QUERY,
+                        (rs, rowNum) -> new LikeCount(rs.getLong("film_id"), rs.getLong("like_count")), count);
+                synchronized (candidates) {
+                    candidates.addAll(shardTop);
+                }
+            });
+        }
+        hydrationExecutor.runAll(tasks);
+        return candidates.stream()
+                .sorted(Comparator.comparingLong(LikeCount::getLikes).reversed()
+                        .thenComparingLong(LikeCount::getFilmId))
+                .limit(count)
+                .toList();
+    }
+
+    // Шарды выгружаются по очереди, чтобы одновременно был открыт только один курсор.
+    public void forEachLike(EdgeSink sink) {
+        shards.forEach(jdbcTemplate -> EdgeStreams.forEach(jdbcTemplate, EXPORT_LIKES_QUERY, sink));
+    }
+
+    public int purgeLikesOfFilm(long filmId, int limit) {
+        return shard(filmId).update(DELETE_FILM_LIKES_CHUNK_QUERY, filmId, limit);
+    }
+
+    // Пачка набирается по шардам по очереди, пока не наберётся limit лайков.
+    public int purgeLikesOfUser(long userId, int limit, LongConsumer changedFilm) {
+        int deleted = 0;
+        for (JdbcTemplate jdbcTemplate : shards) {
+            if (deleted == limit) {
+                break;
+            }
+            List<Long> filmIds = jdbcTemplate.queryForList(FIND_USER_LIKES_CHUNK_QUERY, Long.class,
+                    userId, limit - deleted);
+            if (!filmIds.isEmpty()) {
+                jdbcTemplate.update(DELETE_USER_LIKES_QUERY, userId, filmIds.toArray());
+                filmIds.forEach(changedFilm::accept);
+                deleted += filmIds.size();
+            }
+        }
+        return deleted;
+    }
+
+    private JdbcTemplate shard(long filmId) {
+        return shards.get(shardFor(filmId));
+    }
+
+    private List<Runnable> tasksByShard(Collection<Long> filmIds, int chunkSize, ShardQuery query) {
+        Map<Integer, List<Long>> idsByShard = new HashMap<>();
+        for (Long filmId : filmIds) {
+            idsByShard.computeIfAbsent(shardFor(filmId), k -> new ArrayList<>()).add(filmId);
+        }
+        List<Runnable> tasks = new ArrayList<>();
+        idsByShard.forEach((shard, ids) -> {
+            JdbcTemplate jdbcTemplate = shards.get(shard);
+            for (Object[] chunk : SqlArrays.chunkedArrayArguments(ids, chunkSize)) {
+                tasks.add(() -> query.run(jdbcTemplate, chunk));
+            }
+        });
+        return tasks;
+    }
+
+    @FunctionalInterface
+    private interface ShardQuery {
+        void run(JdbcTemplate jdbcTemplate, Object[] arguments);
+    }
+}
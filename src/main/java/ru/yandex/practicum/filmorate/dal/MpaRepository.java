@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.dal;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
@@ -10,18 +11,21 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc", matchIfMissing = true)
 @RequiredArgsConstructor
-public class MpaRepository {
+public class MpaRepository implements MpaStorage {
     private static final String FIND_ALL_QUERY = "SELECT rating_id, name FROM mpa_rating ORDER BY rating_id";
     private static final String FIND_BY_ID_QUERY = "SELECT rating_id, name FROM mpa_rating WHERE rating_id = ?";
 
     private final JdbcTemplate jdbcTemplate;
     private final MpaRowMapper mpaRowMapper;
 
+    @Override
     public List<Mpa> findAll() {
         return jdbcTemplate.query(FIND_ALL_QUERY, mpaRowMapper);
     }
 
+    @Override
     public Optional<Mpa> findById(int id) {
         try {
             Mpa mpa = jdbcTemplate.queryForObject(FIND_BY_ID_QUERY, mpaRowMapper, id);
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface MpaStorage {
+
+    List<Mpa> findAll();
+
+    Optional<Mpa> findById(int id);
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@Profile("fast")
+@Lazy(false)
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReferenceDataInitializer {
+    private static final String FIND_CHECKSUM_QUERY = "SELECT checksum FROM schema_version WHERE id = 1";
+    private static final String SAVE_CHECKSUM_QUERY = "MERGE INTO schema_version (id, checksum) KEY(id) VALUES (1, ?)";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void initialize() {
+        long started = System.nanoTime();
+        Resource[] scripts = {new ClassPathResource("schema.sql"), new ClassPathResource("data.sql")};
+        // Версия — контрольная сумма самих скриптов: любая их правка приводит к повторному запуску
+        String checksum = checksum(scripts);
+        if (checksum.equals(findChecksum())) {
+            log.info("Справочные данные актуальны ({}), инициализация БД пропущена", checksum);
+            return;
+        }
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(scripts);
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+        jdbcTemplate.update(SAVE_CHECKSUM_QUERY, checksum);
+        log.info("Справочные данные обновлены ({}) за {} мс", checksum,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private String findChecksum() {
+        try {
+            return jdbcTemplate.query(FIND_CHECKSUM_QUERY, rs -> rs.next() ? rs.getString(1) : null);
+        } catch (BadSqlGrammarException e) {
+            return null;
+        }
+    }
+
+    private static String checksum(Resource... scripts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Resource script : scripts) {
+                digest.update(script.getContentAsByteArray());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Не удалось посчитать контрольную сумму скриптов БД", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Списки id передаются одним параметром-массивом ("col = ANY(?)"): текст запроса не зависит от размера списка,
+// поэтому H2 разбирает и планирует его один раз, а индекс по col используется так же, как для IN (...).
+// Очень большие списки режутся на части, чтобы не упираться в предел длины массива H2 (65536).
+final class SqlArrays {
+    static final int MAX_ARRAY_LENGTH = 10_000;
+
+    private SqlArrays() {
+    }
+
+    // Каждый элемент — полный набор аргументов запроса с единственным параметром-массивом.
+    static List<Object[]> chunkedArrayArguments(Collection<?> values) {
+        return chunkedArrayArguments(values, MAX_ARRAY_LENGTH);
+    }
+
+    static List<Object[]> chunkedArrayArguments(long[] values, int size) {
+        List<Object[]> chunks = new ArrayList<>((size + MAX_ARRAY_LENGTH - 1) / MAX_ARRAY_LENGTH);
+        for (int from = 0; from < size; from += MAX_ARRAY_LENGTH) {
+            Long[] chunk = new Long[Math.min(size, from + MAX_ARRAY_LENGTH) - from];
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = values[from + i];
+            }
+            chunks.add(new Object[]{chunk});
+        }
+        return chunks;
+    }
+
+    static List<Object[]> chunkedArrayArguments(Collection<?> values, int chunkSize) {
+        Object[] all = values.toArray();
+        List<Object[]> chunks = new ArrayList<>((all.length + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < all.length; from += chunkSize) {
+            chunks.add(new Object[]{Arrays.copyOfRange(all, from, Math.min(all.length, from + chunkSize))});
+        }
+        return chunks;
+    }
+}
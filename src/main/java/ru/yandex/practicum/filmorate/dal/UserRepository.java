@@ -1,10 +1,11 @@
 package ru.yandex.practicum.filmorate.dal;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dal.inmemory.EdgeIndex;
 import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -14,31 +15,63 @@ import ru.yandex.practicum.filmorate.model.User;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Repository
-@RequiredArgsConstructor
-public class UserRepository {
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc", matchIfMissing = true)
+public class UserRepository implements UserStorage {
 
-    private static final String FIND_ALL_QUERY = "SELECT user_id, email, login, name, birthday FROM users";
-    private static final String FIND_BY_ID_QUERY = "SELECT user_id, email, login, name, birthday FROM users WHERE user_id = ?";
+    private static final String FIND_ALL_QUERY =
+            "SELECT user_id, email, login, name, birthday FROM users WHERE NOT deleted";
+    private static final String FIND_BY_ID_QUERY = FIND_ALL_QUERY + " AND user_id = ?";
+    private static final String FIND_BY_IDS_QUERY = FIND_ALL_QUERY + " AND user_id = ANY(?)";
     private static final String INSERT_QUERY = "INSERT INTO users (login, name, email, birthday) VALUES (?, ?, ?, ?)";
-    private static final String UPDATE_QUERY = "UPDATE users SET login = ?, name = ?, email = ?, birthday = ? WHERE user_id = ?";
+    private static final String UPDATE_QUERY =
+            "UPDATE users SET login = ?, name = ?, email = ?, birthday = ? WHERE user_id = ? AND NOT deleted";
 
+    // Дружба пишется только между живыми пользователями: внешний ключ пропускает мягко удалённые строки.
     private static final String ADD_FRIEND_QUERY = """
-        INSERT INTO friends (user_id, friend_id)
-        SELECT ?, ? WHERE NOT EXISTS (
-            SELECT 1 FROM friends WHERE user_id = ? AND friend_id = ?
-        )
+        MERGE INTO friends (user_id, friend_id) KEY (user_id, friend_id)
+        SELECT u.user_id, f.user_id
+        FROM users u, users f
+        WHERE u.user_id = ? AND NOT u.deleted AND f.user_id = ? AND NOT f.deleted
         """;
 
     private static final String REMOVE_FRIEND_QUERY = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
 
+    // Дружбы мягко удалённых пользователей лежат до фоновой очистки, но наружу не выдаются.
+    private static final String EXPORT_FRIENDS_QUERY = """
+        SELECT f.user_id, f.friend_id
+        FROM friends f
+        INNER JOIN users u ON u.user_id = f.user_id
+        INNER JOIN users fu ON fu.user_id = f.friend_id
+        WHERE NOT u.deleted AND NOT fu.deleted
+        """;
+
+    private static final String FRIENDS_OF_QUERY = """
+        SELECT f.user_id, f.friend_id
+        FROM friends f
+        INNER JOIN users u ON u.user_id = f.friend_id
+        WHERE f.user_id = ANY(?) AND NOT u.deleted
+        """;
+
+    private static final String FRIENDED_BY_QUERY = """
+        SELECT f.friend_id, f.user_id
+        FROM friends f
+        INNER JOIN users u ON u.user_id = f.user_id
+        WHERE f.friend_id = ANY(?) AND NOT u.deleted
+        """;
+
     private static final String GET_FRIENDS_QUERY = """
         SELECT u.user_id, u.email, u.login, u.name, u.birthday
         FROM users u
         INNER JOIN friends f ON u.user_id = f.friend_id
-        WHERE f.user_id = ?
+        WHERE f.user_id = ? AND NOT u.deleted
         """;
 
     private static final String GET_COMMON_FRIENDS_QUERY = """
@@ -46,19 +79,54 @@ public class UserRepository {
         FROM users u
         INNER JOIN friends f1 ON u.user_id = f1.friend_id
         INNER JOIN friends f2 ON u.user_id = f2.friend_id
-        WHERE f1.user_id = ? AND f2.user_id = ?
+        WHERE f1.user_id = ? AND f2.user_id = ? AND NOT u.deleted
         """;
 
-    private static final String EXISTS_USER_QUERY = "SELECT 1 FROM users WHERE user_id = ?";
-    private static final String IS_FRIEND_QUERY = "SELECT 1 FROM friends WHERE user_id = ? AND friend_id = ?";
+    private static final String EXISTS_USER_QUERY = "SELECT 1 FROM users WHERE user_id = ? AND NOT deleted";
+
+    private static final String MARK_DELETED_QUERY = "UPDATE users SET deleted = TRUE WHERE user_id = ? AND NOT deleted";
+
+    private static final String FIND_DELETED_IDS_QUERY = "SELECT user_id FROM users WHERE deleted ORDER BY user_id";
+
+    private static final String FIND_OUTGOING_CHUNK_QUERY =
+            "SELECT id, user_id, friend_id FROM friends WHERE user_id = ? FETCH FIRST ? ROWS ONLY";
+
+    private static final String FIND_INCOMING_CHUNK_QUERY =
+            "SELECT id, user_id, friend_id FROM friends WHERE friend_id = ? FETCH FIRST ? ROWS ONLY";
+
+    private static final String DELETE_FRIENDS_BY_IDS_QUERY = "DELETE FROM friends WHERE id = ANY(?)";
+
+    private static final String HARD_DELETE_QUERY = "DELETE FROM users WHERE user_id = ? AND deleted";
 
     private final JdbcTemplate jdbcTemplate;
     private final UserRowMapper userRowMapper;
+    private final EdgeIndex edgeIndex;
+
+    public UserRepository(JdbcTemplate jdbcTemplate, UserRowMapper userRowMapper, Optional<EdgeIndex> edgeIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRowMapper = userRowMapper;
+        this.edgeIndex = edgeIndex.orElse(null);
+    }
 
+    @Override
     public List<User> findAll() {
         return jdbcTemplate.query(FIND_ALL_QUERY, userRowMapper);
     }
 
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<User> users = new ArrayList<>(ids.size());
+        for (Object[] chunk : SqlArrays.chunkedArrayArguments(ids)) {
+            users.addAll(jdbcTemplate.query(FIND_BY_IDS_QUERY, userRowMapper, chunk));
+        }
+        return users;
+    }
+
+    @Override
     public User create(User user) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
         int rowsAffected = jdbcTemplate.update(connection -> {
@@ -84,6 +152,7 @@ public class UserRepository {
         return user;
     }
 
+    @Override
     public User get(long id) {
         try {
             return jdbcTemplate.queryForObject(FIND_BY_ID_QUERY, userRowMapper, id);
@@ -92,6 +161,7 @@ public class UserRepository {
         }
     }
 
+    @Override
     public User update(User user) {
         int rowsUpdated = jdbcTemplate.update(UPDATE_QUERY,
                 user.getLogin(),
@@ -109,6 +179,7 @@ public class UserRepository {
         return user;
     }
 
+    @Override
     public boolean exists(long id) {
         try {
             jdbcTemplate.queryForObject(EXISTS_USER_QUERY, Integer.class, id);
@@ -118,32 +189,37 @@ public class UserRepository {
         }
     }
 
+    @Override
     public void addFriend(long userId, long friendId) {
         if (userId == friendId) {
             throw new ValidationException("User cannot add themselves as friend");
         }
-        if (!exists(userId)) {
-            throw new NotFoundException("User with id=" + userId + " not found");
-        }
-        if (!exists(friendId)) {
-            throw new NotFoundException("User with id=" + friendId + " not found");
+        if (jdbcTemplate.update(ADD_FRIEND_QUERY, userId, friendId) == 0) {
+            long missingId = exists(userId) ? friendId : userId;
+            throw new NotFoundException("User with id=" + missingId + " not found");
         }
-        if (isFriend(userId, friendId)) {
-            throw new ValidationException("Users " + userId + " and " + friendId + " are already friends");
+        if (edgeIndex != null) {
+            edgeIndex.addFriend(userId, friendId);
         }
-        jdbcTemplate.update(ADD_FRIEND_QUERY, userId, friendId, userId, friendId);
     }
 
+    @Override
     public void removeFriend(long userId, long friendId) {
-        if (!exists(userId)) {
-            throw new NotFoundException("User with id=" + userId + " not found");
+        int rowsDeleted = jdbcTemplate.update(REMOVE_FRIEND_QUERY, userId, friendId);
+        if (edgeIndex != null) {
+            edgeIndex.removeFriend(userId, friendId);
         }
-        if (!exists(friendId)) {
-            throw new NotFoundException("User with id=" + friendId + " not found");
+        if (rowsDeleted == 0) {
+            if (!exists(userId)) {
+                throw new NotFoundException("User with id=" + userId + " not found");
+            }
+            if (!exists(friendId)) {
+                throw new NotFoundException("User with id=" + friendId + " not found");
+            }
         }
-        jdbcTemplate.update(REMOVE_FRIEND_QUERY, userId, friendId);
     }
 
+    @Override
     public List<User> getFriends(long userId) {
         if (!exists(userId)) {
             throw new NotFoundException("User with id=" + userId + " not found");
@@ -151,6 +227,7 @@ public class UserRepository {
         return jdbcTemplate.query(GET_FRIENDS_QUERY, userRowMapper, userId);
     }
 
+    @Override
     public List<User> getCommonFriends(long userId1, long userId2) {
         if (!exists(userId1)) {
             throw new NotFoundException("User with id=" + userId1 + " not found");
@@ -161,12 +238,70 @@ public class UserRepository {
         return jdbcTemplate.query(GET_COMMON_FRIENDS_QUERY, userRowMapper, userId1, userId2);
     }
 
-    private boolean isFriend(long userId, long friendId) {
-        try {
-            jdbcTemplate.queryForObject(IS_FRIEND_QUERY, Integer.class, userId, friendId);
-            return true;
-        } catch (EmptyResultDataAccessException e) {
-            return false;
+    @Override
+    public void forEachFriendship(EdgeSink sink) {
+        EdgeStreams.forEach(jdbcTemplate, EXPORT_FRIENDS_QUERY, sink);
+    }
+
+    @Override
+    public boolean markDeleted(long userId) {
+        return jdbcTemplate.update(MARK_DELETED_QUERY, userId) > 0;
+    }
+
+    @Override
+    public List<Long> findDeletedIds() {
+        return jdbcTemplate.queryForList(FIND_DELETED_IDS_QUERY, Long.class);
+    }
+
+    // Сначала исходящие дружбы, затем входящие: каждая выборка идёт по своему индексу.
+    @Override
+    public int purgeChunk(long userId, int limit) {
+        int deleted = deleteFriendships(FIND_OUTGOING_CHUNK_QUERY, userId, limit);
+        return deleted > 0 ? deleted : deleteFriendships(FIND_INCOMING_CHUNK_QUERY, userId, limit);
+    }
+
+    // Дружбы, добавленные после последней пачки, удаляет ON DELETE CASCADE вместе с пользователем.
+    @Override
+    public void hardDelete(long userId) {
+        jdbcTemplate.update(HARD_DELETE_QUERY, userId);
+    }
+
+    private int deleteFriendships(String chunkQuery, long userId, int limit) {
+        List<long[]> rows = jdbcTemplate.query(chunkQuery,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, userId, limit);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Long[] ids = new Long[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = rows.get(i)[0];
+        }
+        jdbcTemplate.update(DELETE_FRIENDS_BY_IDS_QUERY, (Object) ids);
+        if (edgeIndex != null) {
+            rows.forEach(row -> edgeIndex.removeFriend(row[1], row[2]));
+        }
+        return rows.size();
+    }
+
+    @Override
+    public void expandFriends(long[] userIds, int size, boolean incoming, EdgeSink sink) {
+        // Индекс связей хранит только исходящие рёбра; входящие всегда читаются из friends по индексу friend_id.
+        if (edgeIndex != null && !incoming) {
+            Set<Long> deletedIds = new HashSet<>(findDeletedIds());
+            for (int i = 0; i < size; i++) {
+                for (long friendId : edgeIndex.friends(userIds[i])) {
+                    if (!deletedIds.contains(friendId)) {
+                        sink.accept(userIds[i], friendId);
+                    }
+                }
+            }
+            return;
+        }
+        String query = incoming ? FRIENDED_BY_QUERY : FRIENDS_OF_QUERY;
+        for (Object[] chunk : SqlArrays.chunkedArrayArguments(userIds, size)) {
+            jdbcTemplate.query(query, rs -> {
+                sink.accept(rs.getLong(1), rs.getLong(2));
+            }, chunk);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserStorage {
+
+    List<User> findAll();
+
+    List<User> findAllById(Collection<Long> ids);
+
+    User create(User user);
+
+    User get(long id);
+
+    User update(User user);
+
+    boolean exists(long id);
+
+    void addFriend(long userId, long friendId);
+
+    void removeFriend(long userId, long friendId);
+
+    List<User> getFriends(long userId);
+
+    List<User> getCommonFriends(long userId1, long userId2);
+
+    void forEachFriendship(EdgeSink sink);
+
+    // Соседи всего фронта обхода одним проходом: sink получает (userId из фронта, сосед).
+    // incoming — входящие рёбра, то есть пользователи, добавившие userId в друзья.
+    void expandFriends(long[] userIds, int size, boolean incoming, EdgeSink sink);
+
+    // Мягкое удаление: пользователь сразу перестаёт читаться, а дружбы и сам пользователь удаляет фоновая очистка.
+    boolean markDeleted(long userId);
+
+    List<Long> findDeletedIds();
+
+    // Удаляет не больше limit дружб удалённого пользователя в обе стороны; 0 — дружб не осталось.
+    int purgeChunk(long userId, int limit);
+
+    void hardDelete(long userId);
+}
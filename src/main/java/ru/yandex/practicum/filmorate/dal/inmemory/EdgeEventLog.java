@@ -0,0 +1,359 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'memory' and ${filmorate.event-log.enabled:false}")
+public class EdgeEventLog {
+    static final int LIKE_ADDED = 1;
+    static final int LIKE_REMOVED = 2;
+    static final int FRIEND_ADDED = 3;
+    static final int FRIEND_REMOVED = 4;
+
+    private static final int RECORD_SIZE = 24;
+    private static final int PAYLOAD_SIZE = 20;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_FILE = "edges.snapshot";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final Duration flushInterval;
+    private final Duration compactionInterval;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[PAYLOAD_SIZE];
+
+    private final LongSetIndex recoveredLikes = new LongSetIndex();
+    private final LongSetIndex recoveredFriends = new LongSetIndex();
+    private long maxFilmId;
+    private long maxUserId;
+
+    private Segment current;
+    private ScheduledExecutorService scheduler;
+
+    public EdgeEventLog(@Value("${filmorate.event-log.directory:./db/edges}") Path directory,
+                        @Value("${filmorate.event-log.segment-size:67108864}") int segmentSize,
+                        @Value("${filmorate.event-log.flush-interval:PT1S}") Duration flushInterval,
+                        @Value("${filmorate.event-log.compaction-interval:PT10M}") Duration compactionInterval) {
+        this.directory = directory;
+        this.recordsPerSegment = segmentSize / RECORD_SIZE;
+        this.flushInterval = flushInterval;
+        this.compactionInterval = compactionInterval;
+        if (recordsPerSegment == 0) {
+            throw new IllegalArgumentException("Размер сегмента журнала меньше одной записи: " + segmentSize);
+        }
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить журнал связей из " + directory, e);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "edge-event-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::compactQuietly,
+                compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        appendLock.lock();
+        try {
+            current.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть сегмент журнала связей: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    void append(int op, long first, long second) {
+        appendLock.lock();
+        try {
+            if (current.position == recordsPerSegment) {
+                roll();
+            }
+            int offset = current.position * RECORD_SIZE;
+            ByteBuffer.wrap(scratch).putInt(op).putLong(first).putLong(second);
+            crc.reset();
+            crc.update(scratch, 0, PAYLOAD_SIZE);
+            current.buffer.put(offset + 4, scratch, 4, PAYLOAD_SIZE - 4);
+            current.buffer.putInt(offset + PAYLOAD_SIZE, (int) crc.getValue());
+            current.buffer.putInt(offset, op);
+            current.position++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать событие в журнал связей", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void flush() {
+        appendLock.lock();
+        try {
+            current.buffer.force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void compact() throws IOException {
+        long sealedUpTo;
+        appendLock.lock();
+        try {
+            if (current.position == 0) {
+                sealedUpTo = current.index;
+            } else {
+                roll();
+                sealedUpTo = current.index;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        LongSetIndex likes = new LongSetIndex();
+        LongSetIndex friends = new LongSetIndex();
+        long covered = readSnapshot(likes, friends);
+        if (covered >= sealedUpTo) {
+            return;
+        }
+        for (long index : listSegments()) {
+            if (index >= covered && index < sealedUpTo) {
+                replaySegment(index, likes, friends);
+            }
+        }
+        EdgeSnapshot.write(directory.resolve(SNAPSHOT_FILE), new long[]{sealedUpTo}, likes, friends);
+        for (long index : listSegments()) {
+            if (index < sealedUpTo) {
+                Files.deleteIfExists(segmentPath(index));
+            }
+        }
+        log.info("Журнал связей сжат в снимок, удалены сегменты до {}", sealedUpTo);
+    }
+
+    void loadLikes(LongSetIndex target) {
+        target.loadFrom(recoveredLikes);
+    }
+
+    void loadFriends(LongSetIndex target) {
+        target.loadFrom(recoveredFriends);
+    }
+
+    long maxFilmId() {
+        return maxFilmId;
+    }
+
+    long maxUserId() {
+        return maxUserId;
+    }
+
+    private void recover() throws IOException {
+        long covered = readSnapshot(recoveredLikes, recoveredFriends);
+
+        long lastIndex = covered;
+        int lastPosition = 0;
+        boolean truncated = false;
+        for (long index : listSegments()) {
+            if (index < covered) {
+                Files.deleteIfExists(segmentPath(index));
+                continue;
+            }
+            // После оборванной записи журнал обрезается: более поздние сегменты продолжали бы
+            // историю, в которой не хватает событий.
+            if (truncated) {
+                log.warn("Сегмент {} записан после оборванной записи и удалён", index);
+                Files.deleteIfExists(segmentPath(index));
+                continue;
+            }
+            lastIndex = index;
+            lastPosition = replaySegment(index, recoveredLikes, recoveredFriends);
+            truncated = lastPosition < recordsPerSegment && hasRecordAt(index, lastPosition);
+        }
+        current = Segment.open(segmentPath(lastIndex), lastIndex, recordsPerSegment);
+        current.position = lastPosition;
+        current.clearFrom(lastPosition);
+
+        recoveredLikes.forEach((filmId, userIds) -> {
+            maxFilmId = Math.max(maxFilmId, filmId);
+            maxUserId = Math.max(maxUserId, userIds[userIds.length - 1]);
+        });
+        recoveredFriends.forEach((userId, friendIds) ->
+                maxUserId = Math.max(maxUserId, Math.max(userId, friendIds[friendIds.length - 1])));
+        log.info("Журнал связей восстановлен: {} фильмов с лайками, {} пользователей с друзьями",
+                recoveredLikes.keyCount(), recoveredFriends.keyCount());
+    }
+
+    private int replaySegment(long index, LongSetIndex likes, LongSetIndex friends) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 checksum = new CRC32();
+            byte[] payload = new byte[PAYLOAD_SIZE];
+            int records = (int) Math.min(channel.size() / RECORD_SIZE, recordsPerSegment);
+            for (int position = 0; position < records; position++) {
+                int offset = position * RECORD_SIZE;
+                buffer.get(offset, payload, 0, PAYLOAD_SIZE);
+                checksum.reset();
+                checksum.update(payload, 0, PAYLOAD_SIZE);
+                int op = buffer.getInt(offset);
+                if (op == 0 || (int) checksum.getValue() != buffer.getInt(offset + PAYLOAD_SIZE)) {
+                    if (op != 0) {
+                        log.warn("Оборванная запись в сегменте {} на позиции {}, дальнейшие записи отброшены",
+                                index, position);
+                    }
+                    return position;
+                }
+                apply(op, buffer.getLong(offset + 4), buffer.getLong(offset + 12), likes, friends);
+            }
+            return records;
+        }
+    }
+
+    private boolean hasRecordAt(long index, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+            ByteBuffer op = ByteBuffer.allocate(4);
+            return channel.read(op, (long) position * RECORD_SIZE) == 4 && op.getInt(0) != 0;
+        }
+    }
+
+    private void apply(int op, long first, long second, LongSetIndex likes, LongSetIndex friends) {
+        switch (op) {
+            case LIKE_ADDED -> likes.add(first, second);
+            case LIKE_REMOVED -> likes.remove(first, second);
+            case FRIEND_ADDED -> friends.add(first, second);
+            case FRIEND_REMOVED -> friends.remove(first, second);
+            default -> throw new IllegalStateException("Неизвестный тип события в журнале связей: " + op);
+        }
+    }
+
+    private void roll() throws IOException {
+        current.close();
+        long next = current.index + 1;
+        current = Segment.open(segmentPath(next), next, recordsPerSegment);
+    }
+
+    private long readSnapshot(LongSetIndex likes, LongSetIndex friends) throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return EdgeSnapshot.read(path, likes, friends)[0];
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", index) + SEGMENT_SUFFIX);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сбросить журнал связей на диск: {}", e.getMessage());
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось сжать журнал связей: {}", e.getMessage());
+        }
+    }
+
+    private static final class Segment {
+        private final long index;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(long index, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, long index, int records) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * RECORD_SIZE);
+            return new Segment(index, channel, buffer);
+        }
+
+        // Записи прошлого запуска после позиции восстановления затираются: иначе при следующем
+        // восстановлении уцелевшие за оборванной записью старые события проигрались бы как текущие.
+        void clearFrom(int position) {
+            int from = position * RECORD_SIZE;
+            int to = buffer.capacity();
+            boolean dirty = false;
+            for (int offset = from; offset < to; offset += RECORD_SIZE) {
+                if (buffer.getInt(offset) != 0) {
+                    dirty = true;
+                    break;
+                }
+            }
+            if (!dirty) {
+                return;
+            }
+            byte[] zeros = new byte[RECORD_SIZE * 1024];
+            for (int offset = from; offset < to; offset += zeros.length) {
+                buffer.put(offset, zeros, 0, Math.min(zeros.length, to - offset));
+            }
+            buffer.force();
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'jdbc' and ${filmorate.edge-index.enabled:false}")
+public class EdgeIndex {
+    private static final String MAX_LIKE_ID_QUERY = "SELECT COALESCE(MAX(like_id), 0) FROM likes";
+    private static final String MAX_FRIEND_ID_QUERY = "SELECT COALESCE(MAX(id), 0) FROM friends";
+    private static final String COUNT_LIKES_QUERY = "SELECT COUNT(*) FROM likes";
+    private static final String COUNT_FRIENDS_QUERY = "SELECT COUNT(*) FROM friends";
+    private static final String LIKES_AFTER_QUERY = "SELECT film_id, user_id FROM likes WHERE like_id > ?";
+    private static final String FRIENDS_AFTER_QUERY = "SELECT user_id, friend_id FROM friends WHERE id > ?";
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path snapshotPath;
+    private final Duration snapshotInterval;
+    private final LongSetIndex likes = new LongSetIndex();
+    private final LongSetIndex friends = new LongSetIndex();
+    private ScheduledExecutorService scheduler;
+
+    public EdgeIndex(JdbcTemplate jdbcTemplate,
+                     @Value("${filmorate.edge-index.snapshot:./db/edge-index.snapshot}") Path snapshotPath,
+                     @Value("${filmorate.edge-index.snapshot-interval:PT5M}") Duration snapshotInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotPath = snapshotPath;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        warmStart();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "edge-index-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::writeSnapshotQuietly,
+                snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        writeSnapshotQuietly();
+    }
+
+    public void addLike(long filmId, long userId) {
+        likes.add(filmId, userId);
+    }
+
+    public void removeLike(long filmId, long userId) {
+        likes.remove(filmId, userId);
+    }
+
+    public void addFriend(long userId, long friendId) {
+        friends.add(userId, friendId);
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        friends.remove(userId, friendId);
+    }
+
+    public long[] likers(long filmId) {
+        return likes.get(filmId);
+    }
+
+    public long[] friends(long userId) {
+        return friends.get(userId);
+    }
+
+    void warmStart() {
+        long started = System.nanoTime();
+        long[] watermarks = {0, 0};
+        if (Files.exists(snapshotPath)) {
+            try {
+                watermarks = EdgeSnapshot.read(snapshotPath, likes, friends);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Снимок индекса связей не загружен, индекс будет построен заново: {}", e.getMessage());
+                likes.clear();
+                friends.clear();
+                watermarks = new long[]{0, 0};
+            }
+        }
+
+        long replayedLikes = catchUp(likes, LIKES_AFTER_QUERY, COUNT_LIKES_QUERY, watermarks[0]);
+        long replayedFriends = catchUp(friends, FRIENDS_AFTER_QUERY, COUNT_FRIENDS_QUERY, watermarks[1]);
+
+        log.info("Индекс связей загружен за {} мс: {} лайков, {} дружб, дочитано из БД {} и {} строк",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                likes.pairCount(), friends.pairCount(), replayedLikes, replayedFriends);
+    }
+
+    void writeSnapshot() throws IOException {
+        long[] watermarks = {
+                jdbcTemplate.queryForObject(MAX_LIKE_ID_QUERY, Long.class),
+                jdbcTemplate.queryForObject(MAX_FRIEND_ID_QUERY, Long.class)
+        };
+        Path parent = snapshotPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        EdgeSnapshot.write(snapshotPath, watermarks, likes, friends);
+    }
+
+    private long catchUp(LongSetIndex index, String rowsAfterQuery, String countQuery, long watermark) {
+        long replayed = replay(index, rowsAfterQuery, watermark);
+        Long rows = jdbcTemplate.queryForObject(countQuery, Long.class);
+        if (rows != null && rows != index.pairCount()) {
+            log.info("Снимок индекса связей устарел (в индексе {}, в БД {} строк), индекс перестраивается",
+                    index.pairCount(), rows);
+            index.clear();
+            replayed = replay(index, rowsAfterQuery, 0);
+        }
+        return replayed;
+    }
+
+    private long replay(LongSetIndex index, String rowsAfterQuery, long watermark) {
+        long[] rows = new long[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(rowsAfterQuery);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, watermark);
+            return statement;
+        }, rs -> {
+            index.add(rs.getLong(1), rs.getLong(2));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    private void writeSnapshotQuietly() {
+        try {
+            writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось записать снимок индекса связей: {}", e.getMessage());
+        }
+    }
+}
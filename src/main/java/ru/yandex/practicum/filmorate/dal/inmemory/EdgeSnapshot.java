@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+final class EdgeSnapshot {
+    private static final int MAGIC = 0x46454447;
+    private static final int LEGACY_VERSION = 1;
+    private static final int VERSION = 2;
+
+    private EdgeSnapshot() {
+    }
+
+    static void write(Path target, long[] watermarks, LongSetIndex likes, LongSetIndex friends) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(watermarks.length);
+            for (long watermark : watermarks) {
+                out.writeLong(watermark);
+            }
+            writeSection(out, likes);
+            writeSection(out, friends);
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static long[] read(Path source, LongSetIndex likes, LongSetIndex friends) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int bodySize = (int) channel.size() - Long.BYTES;
+            if (bodySize < 2 * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IllegalStateException("Файл не является снимком связей: " + source);
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.slice(0, bodySize));
+            if (checksum.getValue() != buffer.getLong(bodySize)) {
+                throw new IllegalStateException("Снимок связей повреждён: " + source);
+            }
+
+            buffer.position(Integer.BYTES);
+            int version = buffer.getInt();
+            long[] watermarks;
+            if (version == LEGACY_VERSION) {
+                watermarks = new long[]{buffer.getLong()};
+            } else if (version == VERSION) {
+                buffer.getLong();
+                watermarks = new long[buffer.getInt()];
+                for (int i = 0; i < watermarks.length; i++) {
+                    watermarks[i] = buffer.getLong();
+                }
+            } else {
+                throw new IllegalStateException("Неподдерживаемая версия снимка связей " + version + ": " + source);
+            }
+            readSection(buffer, likes);
+            readSection(buffer, friends);
+            return watermarks;
+        }
+    }
+
+    private static void readSection(MappedByteBuffer buffer, LongSetIndex target) {
+        int keys = buffer.getInt();
+        for (int i = 0; i < keys; i++) {
+            long key = buffer.getLong();
+            long[] values = new long[buffer.getInt()];
+            buffer.asLongBuffer().get(values);
+            buffer.position(buffer.position() + values.length * Long.BYTES);
+            target.put(key, values);
+        }
+    }
+
+    private static void writeSection(DataOutputStream out, LongSetIndex index) throws IOException {
+        List<Map.Entry<Long, long[]>> entries = index.entries();
+        out.writeInt(entries.size());
+        for (Map.Entry<Long, long[]> entry : entries) {
+            long[] values = entry.getValue();
+            out.writeLong(entry.getKey());
+            out.writeInt(values.length);
+            for (long value : values) {
+                out.writeLong(value);
+            }
+        }
+    }
+}
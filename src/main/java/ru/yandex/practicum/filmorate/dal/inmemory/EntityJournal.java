@@ -0,0 +1,368 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Строки фильмов и пользователей для журнала связей: без них после перезапуска восстановленные лайки
+// и дружбы ссылались бы на несуществующие записи. Каждое изменение — строка JSON в entities.log;
+// при запуске журнал проигрывается до первой оборванной строки и переписывается в сжатом виде.
+// Для сжатия на ходу журнал держит последнюю строку каждой живой записи и переписывает файл
+// фоновым потоком, когда устаревших строк становится больше, чем живых.
+@Slf4j
+@Component
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'memory' and ${filmorate.event-log.enabled:false}")
+public class EntityJournal {
+    private static final String JOURNAL_FILE = "entities.log";
+    private static final long MIN_COMPACTION_LINES = 10_000;
+
+    private final Path path;
+    private final Duration flushInterval;
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    // Состояние меняется только под appendLock.
+    private final Map<Long, byte[]> userLines = new LinkedHashMap<>();
+    private final Map<Long, byte[]> filmLines = new LinkedHashMap<>();
+    private final Set<Long> deletedUserIds = new TreeSet<>();
+    private final Set<Long> deletedFilmIds = new TreeSet<>();
+    private long maxUserId;
+    private long maxFilmId;
+    private long appendedLines;
+
+    private FileChannel channel;
+    private ScheduledExecutorService scheduler;
+
+    public EntityJournal(@Value("${filmorate.event-log.directory:./db/edges}") Path directory,
+                         @Value("${filmorate.event-log.flush-interval:PT1S}") Duration flushInterval) {
+        this.path = directory.resolve(JOURNAL_FILE);
+        this.flushInterval = flushInterval;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить журнал записей из " + path, e);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushAndCompactQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        appendLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть журнал записей: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    void putUser(User user) {
+        append(new Entry(Op.USER, user.getId(), user, null));
+    }
+
+    void putFilm(Film film) {
+        append(new Entry(Op.FILM, film.getId(), null, FilmRow.of(film)));
+    }
+
+    void userDeleted(long userId) {
+        append(new Entry(Op.USER_DELETED, userId, null, null));
+    }
+
+    void filmDeleted(long filmId) {
+        append(new Entry(Op.FILM_DELETED, filmId, null, null));
+    }
+
+    void userPurged(long userId) {
+        append(new Entry(Op.USER_PURGED, userId, null, null));
+    }
+
+    void filmPurged(long filmId) {
+        append(new Entry(Op.FILM_PURGED, filmId, null, null));
+    }
+
+    public void flush() {
+        appendLock.lock();
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сбросить журнал записей на диск", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    List<User> users() {
+        appendLock.lock();
+        try {
+            return userLines.values().stream().map(line -> parse(line).user()).toList();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    List<FilmRow> films() {
+        appendLock.lock();
+        try {
+            return filmLines.values().stream().map(line -> parse(line).film()).toList();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    Set<Long> deletedUserIds() {
+        appendLock.lock();
+        try {
+            return new TreeSet<>(deletedUserIds);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    Set<Long> deletedFilmIds() {
+        appendLock.lock();
+        try {
+            return new TreeSet<>(deletedFilmIds);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Удалённые, но ещё не очищенные записи тоже известны: их связи удалит фоновая очистка.
+    // Вызывается при запуске, до первых изменений.
+    boolean isKnownUser(long userId) {
+        return userLines.containsKey(userId) || deletedUserIds.contains(userId);
+    }
+
+    boolean isKnownFilm(long filmId) {
+        return filmLines.containsKey(filmId) || deletedFilmIds.contains(filmId);
+    }
+
+    // С учётом окончательно удалённых записей, чтобы их id не выдавались повторно.
+    long maxUserId() {
+        return maxUserId;
+    }
+
+    long maxFilmId() {
+        return maxFilmId;
+    }
+
+    // Переписывает файл, если устаревших строк в нём больше, чем живых; true — файл переписан.
+    boolean compactIfNeeded() {
+        appendLock.lock();
+        try {
+            long liveLines = userLines.size() + filmLines.size() + deletedUserIds.size() + deletedFilmIds.size();
+            if (appendedLines < MIN_COMPACTION_LINES || appendedLines < liveLines) {
+                return false;
+            }
+            compact();
+            log.info("Журнал записей сжат: {} пользователей, {} фильмов", userLines.size(), filmLines.size());
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сжать журнал записей", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void append(Entry entry) {
+        byte[] line = toLine(entry);
+        appendLock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            apply(entry, line);
+            appendedLines++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать изменение в журнал записей", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Файл читается построчно потоком: его размер не ограничен памятью.
+    private void recover() throws IOException {
+        if (Files.exists(path)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                int lines = 0;
+                int next;
+                while ((next = in.read()) != -1) {
+                    if (next != '\n') {
+                        line.write(next);
+                        continue;
+                    }
+                    Entry entry;
+                    try {
+                        entry = mapper.readValue(line.toByteArray(), Entry.class);
+                    } catch (IOException e) {
+                        log.warn("Повреждённая строка {} журнала записей, дальнейшие строки отброшены", lines + 1);
+                        break;
+                    }
+                    apply(entry, toLine(entry));
+                    line.reset();
+                    lines++;
+                }
+            }
+        }
+
+        // Журнал переписывается только текущим состоянием: отброшенный хвост и устаревшие версии
+        // строк не переживут следующий запуск.
+        compact();
+        log.info("Журнал записей восстановлен: {} пользователей, {} фильмов", userLines.size(), filmLines.size());
+    }
+
+    // Новый файл пишется рядом и атомарно подменяет старый; добавления в это время ждут appendLock.
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(JOURNAL_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(out, toLine(new Entry(Op.USER_SEQUENCE, maxUserId, null, null)));
+            write(out, toLine(new Entry(Op.FILM_SEQUENCE, maxFilmId, null, null)));
+            for (byte[] line : userLines.values()) {
+                write(out, line);
+            }
+            for (byte[] line : filmLines.values()) {
+                write(out, line);
+            }
+            for (long userId : deletedUserIds) {
+                write(out, toLine(new Entry(Op.USER_DELETED, userId, null, null)));
+            }
+            for (long filmId : deletedFilmIds) {
+                write(out, toLine(new Entry(Op.FILM_DELETED, filmId, null, null)));
+            }
+            out.force(true);
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        appendedLines = 0;
+    }
+
+    private static void write(FileChannel out, byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private void apply(Entry entry, byte[] line) {
+        long id = entry.id();
+        switch (entry.op()) {
+            case USER -> userLines.put(id, line);
+            case FILM -> filmLines.put(id, line);
+            case USER_DELETED -> {
+                userLines.remove(id);
+                deletedUserIds.add(id);
+            }
+            case FILM_DELETED -> {
+                filmLines.remove(id);
+                deletedFilmIds.add(id);
+            }
+            case USER_PURGED -> deletedUserIds.remove(id);
+            case FILM_PURGED -> deletedFilmIds.remove(id);
+            case USER_SEQUENCE, FILM_SEQUENCE -> {
+            }
+        }
+        switch (entry.op()) {
+            case USER, USER_DELETED, USER_PURGED, USER_SEQUENCE -> maxUserId = Math.max(maxUserId, id);
+            default -> maxFilmId = Math.max(maxFilmId, id);
+        }
+    }
+
+    private byte[] toLine(Entry entry) {
+        try {
+            return (mapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать запись журнала: " + entry, e);
+        }
+    }
+
+    private Entry parse(byte[] line) {
+        try {
+            return mapper.readValue(line, Entry.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать строку журнала записей", e);
+        }
+    }
+
+    private void flushAndCompactQuietly() {
+        try {
+            flush();
+            compactIfNeeded();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сбросить журнал записей на диск: {}", e.getMessage());
+        }
+    }
+
+    enum Op {
+        USER, FILM, USER_DELETED, FILM_DELETED, USER_PURGED, FILM_PURGED, USER_SEQUENCE, FILM_SEQUENCE
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Entry(Op op, long id, User user, FilmRow film) {
+    }
+
+    // Жанры и рейтинг хранятся по id: справочники восстанавливаются отдельно.
+    record FilmRow(long id, String name, String description, LocalDate releaseDate, long duration,
+                   Integer mpaId, Set<Integer> genreIds, Long version) {
+        static FilmRow of(Film film) {
+            return new FilmRow(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                    film.getDuration(), film.getMpaId(), new HashSet<>(film.getGenreIds()), film.getVersion());
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dal.EdgeSink;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.GenreStorage;
+import ru.yandex.practicum.filmorate.dal.MpaStorage;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+@Repository
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory")
+public class InMemoryFilmStorage implements FilmStorage {
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongSetIndex likes;
+    private final Set<Long> deletedIds = ConcurrentHashMap.newKeySet();
+
+    private final UserStorage userStorage;
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final EntityJournal journal;
+
+    public InMemoryFilmStorage(UserStorage userStorage,
+                               GenreStorage genreStorage,
+                               MpaStorage mpaStorage,
+                               Optional<EdgeEventLog> eventLog,
+                               Optional<EntityJournal> entityJournal) {
+        this.userStorage = userStorage;
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        journal = entityJournal.orElse(null);
+        if (journal != null) {
+            for (EntityJournal.FilmRow row : journal.films()) {
+                Film film = toFilm(row);
+                resolveReferences(film);
+                films.put(film.getId(), film);
+            }
+            deletedIds.addAll(journal.deletedFilmIds());
+            nextId.set(journal.maxFilmId() + 1);
+        }
+        if (eventLog.isPresent()) {
+            EdgeEventLog log = eventLog.get();
+            likes = new LongSetIndex((filmId, userId, added) ->
+                    log.append(added ? EdgeEventLog.LIKE_ADDED : EdgeEventLog.LIKE_REMOVED, filmId, userId));
+            log.loadLikes(likes);
+            // Лайки фильмов и пользователей, чьи строки не попали в журнал записей, отбрасываются.
+            if (journal != null) {
+                for (Map.Entry<Long, long[]> entry : likes.entries()) {
+                    for (long userId : entry.getValue()) {
+                        if (!journal.isKnownFilm(entry.getKey()) || !journal.isKnownUser(userId)) {
+                            likes.remove(entry.getKey(), userId);
+                        }
+                    }
+                }
+            }
+            nextId.set(Math.max(nextId.get(), log.maxFilmId() + 1));
+        } else {
+            likes = new LongSetIndex();
+        }
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return films.values().stream()
+                .sorted(Comparator.comparing(Film::getId))
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public List<Film> findAllById(Collection<Long> ids) {
+        List<Film> found = new ArrayList<>();
+        for (Long id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                found.add(copyOf(film));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Film create(Film film) {
+        resolveReferences(film);
+        film.setId(nextId.getAndIncrement());
+        film.setVersion(0L);
+        films.put(film.getId(), copyOf(film));
+        if (journal != null) {
+            journal.putFilm(film);
+        }
+        film.setRate(0L);
+        film.setUserIds(new HashSet<>());
+        return film;
+    }
+
+    @Override
+    public Film get(long id) {
+        Film film = films.get(id);
+        if (film == null) {
+            throw new NotFoundException("Film with id=" + id + " not found");
+        }
+        return copyOf(film);
+    }
+
+    @Override
+    public Film update(Film film) {
+        resolveReferences(film);
+        Film[] stored = new Film[1];
+        films.computeIfPresent(film.getId(), (id, current) -> {
+            if (film.getVersion() != null && !film.getVersion().equals(current.getVersion())) {
+                throw new VersionConflictException("Фильм id=" + id + " уже изменён: текущая версия "
+                        + current.getVersion() + ", в запросе " + film.getVersion());
+            }
+            if (sameContent(current, film)) {
+                stored[0] = current;
+                return current;
+            }
+            Film next = copyOf(film);
+            next.setVersion(current.getVersion() + 1);
+            // Строка журнала пишется под блокировкой записи фильма: иначе два PUT одного фильма могли бы
+            // попасть в журнал в обратном порядке, и после перезапуска восстановилась бы старая версия.
+            if (journal != null) {
+                journal.putFilm(next);
+            }
+            stored[0] = next;
+            return next;
+        });
+        if (stored[0] == null) {
+            throw new NotFoundException("Film with id=" + film.getId() + " not found");
+        }
+        film.setVersion(stored[0].getVersion());
+        return film;
+    }
+
+    @Override
+    public void addLike(long filmId, long userId) {
+        requireExists(filmId);
+        if (!userStorage.exists(userId)) {
+            throw new NotFoundException("User with id=" + userId + " not found");
+        }
+        likes.add(filmId, userId);
+    }
+
+    @Override
+    public void addLikes(long filmId, Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            addLike(filmId, userId);
+        }
+    }
+
+    @Override
+    public void removeLike(long filmId, long userId) {
+        if (!likes.remove(filmId, userId)) {
+            requireExists(filmId);
+            if (!userStorage.exists(userId)) {
+                throw new NotFoundException("User with id=" + userId + " not found");
+            }
+        }
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        return films.values().stream()
+                .sorted(Comparator.comparingInt((Film film) -> likes.size(film.getId())).reversed()
+                        .thenComparing(Film::getId))
+                .limit(count)
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public Map<Long, Long> countLikes(Collection<Long> filmIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Long filmId : filmIds) {
+            counts.put(filmId, (long) likes.size(filmId));
+        }
+        return counts;
+    }
+
+    @Override
+    public boolean exists(long id) {
+        return films.containsKey(id);
+    }
+
+    @Override
+    public void forEachLike(EdgeSink sink) {
+        likes.forEach((filmId, userIds) -> {
+            // Лайки удалённых, но ещё не очищенных записей не выгружаются.
+            if (!films.containsKey(filmId)) {
+                return;
+            }
+            for (long userId : userIds) {
+                if (userStorage.exists(userId)) {
+                    sink.accept(filmId, userId);
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean markDeleted(long filmId) {
+        if (films.remove(filmId) == null) {
+            return false;
+        }
+        deletedIds.add(filmId);
+        if (journal != null) {
+            journal.filmDeleted(filmId);
+        }
+        return true;
+    }
+
+    @Override
+    public List<Long> findDeletedIds() {
+        return deletedIds.stream().sorted().toList();
+    }
+
+    @Override
+    public int purgeChunk(long filmId, int limit) {
+        long[] userIds = likes.get(filmId);
+        int deleted = Math.min(limit, userIds.length);
+        for (int i = 0; i < deleted; i++) {
+            likes.remove(filmId, userIds[i]);
+        }
+        return deleted;
+    }
+
+    // Лайки хранятся по фильмам, поэтому лайки пользователя ищутся проходом по всем фильмам.
+    @Override
+    public int purgeLikesOfUser(long userId, int limit, LongConsumer changedFilm) {
+        int deleted = 0;
+        for (Map.Entry<Long, long[]> entry : likes.entries()) {
+            if (deleted == limit) {
+                break;
+            }
+            if (likes.remove(entry.getKey(), userId)) {
+                changedFilm.accept(entry.getKey());
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void hardDelete(long filmId) {
+        if (deletedIds.remove(filmId) && journal != null) {
+            journal.filmPurged(filmId);
+        }
+    }
+
+    private void requireExists(long filmId) {
+        if (!films.containsKey(filmId)) {
+            throw new NotFoundException("Film with id=" + filmId + " not found");
+        }
+    }
+
+    private void resolveReferences(Film film) {
+        if (film.getMpa() == null || film.getMpa().getId() == null) {
+            throw new ValidationException("Рейтинг MPA обязателен");
+        }
+        Mpa mpa = mpaStorage.findById(film.getMpa().getId())
+                .orElseThrow(() -> new NotFoundException("Неизвестный рейтинг MPA: " + film.getMpa().getId()));
+
+        Set<Integer> genreIds = film.getGenreIds();
+        Map<Integer, Genre> foundGenres = new TreeMap<>();
+        for (Genre genre : genreStorage.findAllById(genreIds)) {
+            foundGenres.put(genre.getId(), genre);
+        }
+        if (foundGenres.size() != genreIds.size()) {
+            Set<Integer> notFoundIds = new TreeSet<>(genreIds);
+            notFoundIds.removeAll(foundGenres.keySet());
+            throw new NotFoundException("Жанры не найдены: " + notFoundIds);
+        }
+
+        film.setMpa(mpa);
+        film.setGenres(Collections.unmodifiableSet(new LinkedHashSet<>(foundGenres.values())));
+    }
+
+    private boolean sameContent(Film current, Film update) {
+        return Objects.equals(current.getName(), update.getName())
+                && Objects.equals(current.getDescription(), update.getDescription())
+                && Objects.equals(current.getReleaseDate(), update.getReleaseDate())
+                && current.getDuration() == update.getDuration()
+                && Objects.equals(current.getMpaId(), update.getMpaId())
+                && current.getGenreIds().equals(update.getGenreIds());
+    }
+
+    private Film toFilm(EntityJournal.FilmRow row) {
+        Film film = new Film();
+        film.setId(row.id());
+        film.setName(row.name());
+        film.setDescription(row.description());
+        film.setReleaseDate(row.releaseDate());
+        film.setDuration(row.duration());
+        film.setMpa(new Mpa(row.mpaId(), null));
+        film.setGenres(row.genreIds().stream().map(genreId -> new Genre(genreId, null)).collect(Collectors.toSet()));
+        film.setVersion(row.version());
+        return film;
+    }
+
+    private Film copyOf(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setMpa(film.getMpa());
+        copy.setGenres(film.getGenres());
+        copy.setVersion(film.getVersion());
+
+        long[] likerIds = likes.get(film.getId());
+        Set<Long> userIds = new HashSet<>(likerIds.length);
+        for (long likerId : likerIds) {
+            userIds.add(likerId);
+        }
+        copy.setUserIds(userIds);
+        copy.setRate((long) likerIds.length);
+        return copy;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dal.GenreStorage;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory")
+public class InMemoryGenreStorage implements GenreStorage {
+    private static final List<Genre> GENRES = List.of(
+            new Genre(1, "Комедия"),
+            new Genre(2, "Драма"),
+            new Genre(3, "Мультфильм"),
+            new Genre(4, "Триллер"),
+            new Genre(5, "Документальный"),
+            new Genre(6, "Боевик")
+    );
+
+    @Override
+    public List<Genre> findAll() {
+        return GENRES;
+    }
+
+    @Override
+    public Optional<Genre> findById(int id) {
+        return GENRES.stream()
+                .filter(genre -> genre.getId() == id)
+                .findFirst();
+    }
+
+    @Override
+    public List<Genre> findAllById(Collection<Integer> ids) {
+        return GENRES.stream()
+                .filter(genre -> ids.contains(genre.getId()))
+                .toList();
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dal.MpaStorage;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory")
+public class InMemoryMpaStorage implements MpaStorage {
+    private static final List<Mpa> MPA_RATINGS = List.of(
+            new Mpa(1, "G"),
+            new Mpa(2, "PG"),
+            new Mpa(3, "PG-13"),
+            new Mpa(4, "R"),
+            new Mpa(5, "NC-17")
+    );
+
+    @Override
+    public List<Mpa> findAll() {
+        return MPA_RATINGS;
+    }
+
+    @Override
+    public Optional<Mpa> findById(int id) {
+        return MPA_RATINGS.stream()
+                .filter(mpa -> mpa.getId() == id)
+                .findFirst();
+    }
+}
@@ -0,0 +1,276 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dal.EdgeSink;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Repository
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory")
+public class InMemoryUserStorage implements UserStorage {
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongSetIndex friends;
+    private final LongSetIndex friendedBy = new LongSetIndex();
+    private final Set<Long> deletedIds = ConcurrentHashMap.newKeySet();
+    private final EntityJournal journal;
+
+    public InMemoryUserStorage(Optional<EdgeEventLog> eventLog, Optional<EntityJournal> entityJournal) {
+        journal = entityJournal.orElse(null);
+        if (journal != null) {
+            journal.users().forEach(user -> users.put(user.getId(), copyOf(user)));
+            deletedIds.addAll(journal.deletedUserIds());
+            nextId.set(journal.maxUserId() + 1);
+        }
+        if (eventLog.isPresent()) {
+            EdgeEventLog log = eventLog.get();
+            friends = new LongSetIndex((userId, friendId, added) ->
+                    log.append(added ? EdgeEventLog.FRIEND_ADDED : EdgeEventLog.FRIEND_REMOVED, userId, friendId));
+            log.loadFriends(friends);
+            // Дружбы с пользователями, чьи строки не попали в журнал записей, отбрасываются (и это тоже журналируется).
+            if (journal != null) {
+                for (Map.Entry<Long, long[]> entry : friends.entries()) {
+                    for (long friendId : entry.getValue()) {
+                        if (!journal.isKnownUser(entry.getKey()) || !journal.isKnownUser(friendId)) {
+                            friends.remove(entry.getKey(), friendId);
+                        }
+                    }
+                }
+            }
+            friends.forEach((userId, friendIds) -> {
+                for (long friendId : friendIds) {
+                    friendedBy.add(friendId, userId);
+                }
+            });
+            nextId.set(Math.max(nextId.get(), log.maxUserId() + 1));
+        } else {
+            friends = new LongSetIndex();
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        return users.values().stream()
+                .sorted(Comparator.comparing(User::getId))
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        List<User> found = new ArrayList<>();
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                found.add(copyOf(user));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public User create(User user) {
+        user.setId(nextId.getAndIncrement());
+        users.put(user.getId(), copyOf(user));
+        if (journal != null) {
+            journal.putUser(user);
+        }
+        return user;
+    }
+
+    @Override
+    public User get(long id) {
+        User user = users.get(id);
+        if (user == null) {
+            throw new NotFoundException("User with id=" + id + " not found");
+        }
+        return copyOf(user);
+    }
+
+    @Override
+    public User update(User user) {
+        User next = copyOf(user);
+        // Как и у фильмов, строка журнала пишется под блокировкой записи и только при настоящем изменении.
+        User stored = users.computeIfPresent(user.getId(), (id, current) -> {
+            if (current.equals(next)) {
+                return current;
+            }
+            if (journal != null) {
+                journal.putUser(next);
+            }
+            return next;
+        });
+        if (stored == null) {
+            throw new NotFoundException("User with id=" + user.getId() + " not found");
+        }
+        return user;
+    }
+
+    @Override
+    public boolean exists(long id) {
+        return users.containsKey(id);
+    }
+
+    @Override
+    public void addFriend(long userId, long friendId) {
+        if (userId == friendId) {
+            throw new ValidationException("User cannot add themselves as friend");
+        }
+        requireExists(userId);
+        requireExists(friendId);
+        if (friends.add(userId, friendId)) {
+            friendedBy.add(friendId, userId);
+        }
+    }
+
+    @Override
+    public void removeFriend(long userId, long friendId) {
+        if (friends.remove(userId, friendId)) {
+            friendedBy.remove(friendId, userId);
+        } else {
+            requireExists(userId);
+            requireExists(friendId);
+        }
+    }
+
+    @Override
+    public List<User> getFriends(long userId) {
+        requireExists(userId);
+        long[] friendIds = friends.get(userId);
+        return toUsers(friendIds, friendIds.length);
+    }
+
+    @Override
+    public List<User> getCommonFriends(long userId1, long userId2) {
+        requireExists(userId1);
+        requireExists(userId2);
+        long[] first = friends.get(userId1);
+        long[] second = friends.get(userId2);
+        long[] common = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return toUsers(common, size);
+    }
+
+    @Override
+    public void forEachFriendship(EdgeSink sink) {
+        friends.forEach((userId, friendIds) -> {
+            // Дружбы удалённых, но ещё не очищенных пользователей не выгружаются.
+            if (!users.containsKey(userId)) {
+                return;
+            }
+            for (long friendId : friendIds) {
+                if (users.containsKey(friendId)) {
+                    sink.accept(userId, friendId);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void expandFriends(long[] userIds, int size, boolean incoming, EdgeSink sink) {
+        LongSetIndex index = incoming ? friendedBy : friends;
+        for (int i = 0; i < size; i++) {
+            for (long neighbourId : index.get(userIds[i])) {
+                if (users.containsKey(neighbourId)) {
+                    sink.accept(userIds[i], neighbourId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean markDeleted(long userId) {
+        if (users.remove(userId) == null) {
+            return false;
+        }
+        deletedIds.add(userId);
+        if (journal != null) {
+            journal.userDeleted(userId);
+        }
+        return true;
+    }
+
+    @Override
+    public List<Long> findDeletedIds() {
+        return deletedIds.stream().sorted().toList();
+    }
+
+    @Override
+    public int purgeChunk(long userId, int limit) {
+        int deleted = 0;
+        for (long friendId : friends.get(userId)) {
+            if (deleted == limit) {
+                return deleted;
+            }
+            removeFriendship(userId, friendId);
+            deleted++;
+        }
+        for (long followerId : friendedBy.get(userId)) {
+            if (deleted == limit) {
+                return deleted;
+            }
+            removeFriendship(followerId, userId);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    @Override
+    public void hardDelete(long userId) {
+        if (deletedIds.remove(userId) && journal != null) {
+            journal.userPurged(userId);
+        }
+    }
+
+    private void removeFriendship(long userId, long friendId) {
+        friends.remove(userId, friendId);
+        friendedBy.remove(friendId, userId);
+    }
+
+    private List<User> toUsers(long[] ids, int size) {
+        List<User> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            User user = users.get(ids[i]);
+            if (user != null) {
+                result.add(copyOf(user));
+            }
+        }
+        return result;
+    }
+
+    private void requireExists(long userId) {
+        if (!users.containsKey(userId)) {
+            throw new NotFoundException("User with id=" + userId + " not found");
+        }
+    }
+
+    private User copyOf(User user) {
+        return new User(user.getId(), user.getLogin(), user.getName(), user.getEmail(), user.getBirthday());
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+class LongSetIndex {
+    private static final long[] EMPTY = new long[0];
+
+    private final ConcurrentHashMap<Long, long[]> sets = new ConcurrentHashMap<>();
+    private final AtomicLong pairs = new AtomicLong();
+    private final ChangeListener listener;
+
+    LongSetIndex() {
+        this((key, value, added) -> {
+        });
+    }
+
+    LongSetIndex(ChangeListener listener) {
+        this.listener = listener;
+    }
+
+    boolean add(long key, long value) {
+        boolean[] added = new boolean[1];
+        sets.compute(key, (k, current) -> {
+            long[] values = current != null ? current : EMPTY;
+            int position = Arrays.binarySearch(values, value);
+            if (position >= 0) {
+                return current;
+            }
+            listener.onChange(key, value, true);
+            int insertAt = -position - 1;
+            long[] next = new long[values.length + 1];
+            System.arraycopy(values, 0, next, 0, insertAt);
+            next[insertAt] = value;
+            System.arraycopy(values, insertAt, next, insertAt + 1, values.length - insertAt);
+            added[0] = true;
+            pairs.incrementAndGet();
+            return next;
+        });
+        return added[0];
+    }
+
+    boolean remove(long key, long value) {
+        boolean[] removed = new boolean[1];
+        sets.computeIfPresent(key, (k, values) -> {
+            int position = Arrays.binarySearch(values, value);
+            if (position < 0) {
+                return values;
+            }
+            listener.onChange(key, value, false);
+            removed[0] = true;
+            pairs.decrementAndGet();
+            if (values.length == 1) {
+                return null;
+            }
+            long[] next = new long[values.length - 1];
+            System.arraycopy(values, 0, next, 0, position);
+            System.arraycopy(values, position + 1, next, position, values.length - position - 1);
+            return next;
+        });
+        return removed[0];
+    }
+
+    long[] get(long key) {
+        return sets.getOrDefault(key, EMPTY);
+    }
+
+    int size(long key) {
+        return get(key).length;
+    }
+
+    boolean contains(long key, long value) {
+        return Arrays.binarySearch(get(key), value) >= 0;
+    }
+
+    int keyCount() {
+        return sets.size();
+    }
+
+    void put(long key, long[] sortedValues) {
+        long[] previous = sortedValues.length == 0 ? sets.remove(key) : sets.put(key, sortedValues);
+        pairs.addAndGet(sortedValues.length - (previous != null ? previous.length : 0));
+    }
+
+    void forEach(BiConsumer<Long, long[]> action) {
+        sets.forEach(action);
+    }
+
+    List<Map.Entry<Long, long[]>> entries() {
+        return new ArrayList<>(sets.entrySet());
+    }
+
+    long pairCount() {
+        return pairs.get();
+    }
+
+    void loadFrom(LongSetIndex source) {
+        source.sets.forEach(this::put);
+    }
+
+    void clear() {
+        sets.clear();
+        pairs.set(0);
+    }
+
+    interface ChangeListener {
+        void onChange(long key, long value, boolean added);
+    }
+}
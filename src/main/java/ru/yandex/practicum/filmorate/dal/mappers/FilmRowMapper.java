@@ -2,15 +2,36 @@ package ru.yandex.practicum.filmorate.dal.mappers;
 
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.GenreMask;
+import ru.yandex.practicum.filmorate.dal.GenreStorage;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class FilmRowMapper implements RowMapper<Film> {
+    // Различных сочетаний жанров немного; предел защищает от неограниченного роста при 64 жанрах.
+    private static final int MAX_CACHED_GENRE_SETS = 4096;
+
+    private final GenreStorage genreStorage;
+    private final MpaRowMapper mpaRowMapper;
+    private final Map<Long, Set<Genre>> genreSets = new ConcurrentHashMap<>();
+    private volatile Map<Integer, Genre> genresById = Map.of();
+
+    public FilmRowMapper(GenreStorage genreStorage, MpaRowMapper mpaRowMapper) {
+        this.genreStorage = genreStorage;
+        this.mpaRowMapper = mpaRowMapper;
+    }
 
     @Override
     public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -19,20 +40,56 @@ public class FilmRowMapper implements RowMapper<Film> {
         film.setName(rs.getString("name"));
         film.setDescription(rs.getString("description"));
         film.setDuration(rs.getLong("duration"));
+        film.setVersion(rs.getLong("version"));
 
         Timestamp releaseDate = rs.getTimestamp("release_date");
         if (releaseDate != null) {
             film.setReleaseDate(releaseDate.toLocalDateTime().toLocalDate());
         }
 
-        Integer mpaId = rs.getInt("mpa_id");
-        String mpaName = rs.getString("mpa_name");
+        int mpaId = rs.getInt("mpa_id");
+        film.setMpa(rs.wasNull() ? null : mpaRowMapper.canonical(mpaId, rs.getString("mpa_name")));
+        film.setGenres(toGenres(rs.getLong("genre_mask")));
+        return film;
+    }
 
-        Mpa mpa = null;
-        if (mpaId != null) {
-            mpa = new Mpa(mpaId, mpaName);
+    // Фильмы с одинаковой маской получают один и тот же неизменяемый набор жанров.
+    private Set<Genre> toGenres(long genreMask) {
+        if (genreMask == 0) {
+            return Collections.emptySet();
         }
-        film.setMpa(mpa);
-        return film;
+        Set<Genre> genres = genreSets.get(genreMask);
+        if (genres != null) {
+            return genres;
+        }
+        genres = decode(genreMask);
+        if (genreSets.size() < MAX_CACHED_GENRE_SETS) {
+            genreSets.put(genreMask, genres);
+        }
+        return genres;
+    }
+
+    private Set<Genre> decode(long genreMask) {
+        Set<Genre> genres = new LinkedHashSet<>();
+        Map<Integer, Genre> known = genresById;
+        for (int genreId : GenreMask.decode(genreMask)) {
+            if (!known.containsKey(genreId)) {
+                known = reloadGenres();
+            }
+            Genre genre = known.get(genreId);
+            if (genre != null) {
+                genres.add(genre);
+            }
+        }
+        return Collections.unmodifiableSet(genres);
+    }
+
+    // Справочник жанров меняется только скриптами data.sql, поэтому перечитывается лишь при встрече неизвестного id.
+    private Map<Integer, Genre> reloadGenres() {
+        Map<Integer, Genre> genres = genreStorage.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(Genre::getId, Function.identity(), (first, second) -> first));
+        genresById = genres;
+        genreSets.clear();
+        return genres;
     }
-}
\ No newline at end of file
+}
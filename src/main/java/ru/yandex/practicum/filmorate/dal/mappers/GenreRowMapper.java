@@ -6,14 +6,26 @@ import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class GenreRowMapper implements RowMapper<Genre> {
+    private final Map<Integer, Genre> canonical = new ConcurrentHashMap<>();
+
     @Override
     public Genre mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return new Genre(
-                rs.getInt("genre_id"),
-                rs.getString("name")
-        );
+        return canonical(rs.getInt("genre_id"), rs.getString("name"));
+    }
+
+    public Genre canonical(int id, String name) {
+        Genre genre = canonical.get(id);
+        if (genre != null && Objects.equals(genre.getName(), name)) {
+            return genre;
+        }
+        genre = new Genre(id, name);
+        canonical.put(id, genre);
+        return genre;
     }
-}
\ No newline at end of file
+}
@@ -6,15 +6,27 @@ import ru.yandex.practicum.filmorate.model.Mpa;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class MpaRowMapper implements RowMapper<Mpa> {
+    private final Map<Integer, Mpa> canonical = new ConcurrentHashMap<>();
 
     @Override
     public Mpa mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return new Mpa(
-                rs.getInt("rating_id"),
-                rs.getString("name")
-        );
+        return canonical(rs.getInt("rating_id"), rs.getString("name"));
     }
-}
\ No newline at end of file
+
+    // Рейтингов пять, поэтому все строки отображаются на общие неизменяемые экземпляры.
+    public Mpa canonical(int id, String name) {
+        Mpa mpa = canonical.get(id);
+        if (mpa != null && Objects.equals(mpa.getName(), name)) {
+            return mpa;
+        }
+        mpa = new Mpa(id, name);
+        canonical.put(id, mpa);
+        return mpa;
+    }
+}
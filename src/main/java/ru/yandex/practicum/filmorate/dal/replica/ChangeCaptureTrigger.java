@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+// Триггер H2 на основной базе: пишет в replication_log таблицу и первичный ключ изменённой строки
+// в той же транзакции. Содержимое строки репликатор перечитывает сам, поэтому повтор записи безопасен.
+public class ChangeCaptureTrigger implements Trigger {
+    private static final String LOG_CHANGE_QUERY = "INSERT INTO replication_log (table_name, row_id) VALUES (?, ?)";
+
+    private String tableName;
+    private int keyIndex;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+                     int type) throws SQLException {
+        this.tableName = tableName.toLowerCase();
+        DatabaseMetaData metaData = conn.getMetaData();
+        String keyColumn = null;
+        try (ResultSet keys = metaData.getPrimaryKeys(null, schemaName, tableName)) {
+            if (keys.next()) {
+                keyColumn = keys.getString("COLUMN_NAME");
+            }
+        }
+        try (ResultSet columns = metaData.getColumns(null, schemaName, tableName, keyColumn)) {
+            if (keyColumn == null || !columns.next()) {
+                throw new SQLException("Не найден первичный ключ таблицы " + tableName);
+            }
+            keyIndex = columns.getInt("ORDINAL_POSITION") - 1;
+        }
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (oldRow != null) {
+            log(conn, oldRow[keyIndex]);
+        }
+        if (newRow != null && (oldRow == null || !Objects.equals(oldRow[keyIndex], newRow[keyIndex]))) {
+            log(conn, newRow[keyIndex]);
+        }
+    }
+
+    private void log(Connection conn, Object key) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(LOG_CHANGE_QUERY)) {
+            statement.setString(1, tableName);
+            statement.setLong(2, ((Number) key).longValue());
+            statement.executeUpdate();
+        }
+    }
+}
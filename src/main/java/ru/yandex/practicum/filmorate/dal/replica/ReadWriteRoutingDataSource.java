@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Соединение берётся с реплики, выбранной для текущего потока, иначе с основной базы.
+// Выбор наследуется потоками, созданными внутри чтения (догрузка лайков на виртуальных потоках),
+// а транзакция остаётся на соединении, полученном при её открытии.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+    private static final InheritableThreadLocal<Integer> CURRENT_REPLICA = new InheritableThreadLocal<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    static Integer currentReplica() {
+        return CURRENT_REPLICA.get();
+    }
+
+    static void useReplica(Integer replica) {
+        if (replica == null) {
+            CURRENT_REPLICA.remove();
+        } else {
+            CURRENT_REPLICA.set(replica);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer replica = CURRENT_REPLICA.get();
+        return replica != null ? replica : PRIMARY;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Изменение от имени пользователя из аргумента userArg (Long или User, id читается после вызова):
+// его чтения уходят на основную базу, пока реплика не догонит это изменение.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadYourWrites {
+    int userArg();
+}
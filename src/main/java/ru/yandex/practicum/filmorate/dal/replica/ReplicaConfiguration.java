@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// Заменяет автоматически настроенный DataSource маршрутизирующим: JdbcTemplate, транзакции
+// и spring.sql.init по умолчанию работают с основной базой.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'jdbc' and ${filmorate.replica.enabled:false}")
+public class ReplicaConfiguration {
+
+    @Bean
+    public DataSource dataSource(Replicator replicator) {
+        return new ReadWriteRoutingDataSource(replicator.getPrimary(), replicator.getReplicas());
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Метод только читает данные и может обслуживаться репликой.
+// userArg — индекс аргумента с id пользователя (Long или User), чьи недавние изменения чтение должно видеть.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+    int userArg() default -1;
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.ReplicaStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Выбирает реплику для чтения по кругу среди тех, чьё отставание не больше max-lag.
+// После изменения от имени пользователя его чтения в течение read-your-writes-window идут только на реплики,
+// уже применившие это изменение, а если таких нет — на основную базу.
+@Component
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'jdbc' and ${filmorate.replica.enabled:false}")
+public class ReplicaRouter {
+    private final Replicator replicator;
+    private final long maxLagNanos;
+    private final long windowNanos;
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder[] replicaReads;
+
+    public ReplicaRouter(Replicator replicator,
+                         @Value("${filmorate.replica.max-lag:5s}") Duration maxLag,
+                         @Value("${filmorate.replica.read-your-writes-window:5s}") Duration window) {
+        this.replicator = replicator;
+        this.maxLagNanos = maxLag.toNanos();
+        this.windowNanos = window.toNanos();
+        this.replicaReads = new LongAdder[replicator.replicaCount()];
+        for (int i = 0; i < replicaReads.length; i++) {
+            replicaReads[i] = new LongAdder();
+        }
+    }
+
+    // Индекс реплики или null, если чтение должно идти на основную базу.
+    public Integer chooseReplica(Long userId) {
+        long now = System.nanoTime();
+        long mustSee = Long.MIN_VALUE;
+        if (userId != null) {
+            Long writtenAt = lastWrites.get(userId);
+            if (writtenAt != null && now - writtenAt > windowNanos) {
+                lastWrites.remove(userId, writtenAt);
+            } else if (writtenAt != null) {
+                mustSee = writtenAt;
+            }
+        }
+
+        int replicaCount = replicator.replicaCount();
+        int start = Math.floorMod(next.getAndIncrement(), replicaCount);
+        for (int offset = 0; offset < replicaCount; offset++) {
+            int replica = (start + offset) % replicaCount;
+            long appliedUpTo = replicator.appliedUpTo(replica);
+            if (appliedUpTo != Long.MIN_VALUE && now - appliedUpTo <= maxLagNanos && appliedUpTo >= mustSee) {
+                replicaReads[replica].increment();
+                return replica;
+            }
+        }
+        primaryReads.increment();
+        return null;
+    }
+
+    // Время записи фиксируется после коммита: реплика, начавшая цикл позже, уже видит изменение.
+    public void markWrite(long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lastWrites.put(userId, System.nanoTime());
+                }
+            });
+        } else {
+            lastWrites.put(userId, System.nanoTime());
+        }
+    }
+
+    public List<ReplicaStats> getStats() {
+        long now = System.nanoTime();
+        List<ReplicaStats> stats = new ArrayList<>();
+        stats.add(new ReplicaStats("primary", 0L, primaryReads.sum()));
+        for (int i = 0; i < replicaReads.length; i++) {
+            long appliedUpTo = replicator.appliedUpTo(i);
+            Long lagMillis = appliedUpTo == Long.MIN_VALUE ? null : TimeUnit.NANOSECONDS.toMillis(now - appliedUpTo);
+            stats.add(new ReplicaStats(replicator.getReplicaUrls().get(i), lagMillis, replicaReads[i].sum()));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.lang.reflect.Method;
+
+// Чтение выбирает источник один раз на внешнем вызове: вложенные чтения и транзакции его не меняют.
+class ReplicaRoutingInterceptor implements MethodInterceptor {
+    private final ObjectProvider<ReplicaRouter> router;
+
+    ReplicaRoutingInterceptor(ObjectProvider<ReplicaRouter> router) {
+        this.router = router;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        ReadYourWrites write = method.getAnnotation(ReadYourWrites.class);
+        if (write != null) {
+            Object result = invocation.proceed();
+            Long userId = userId(invocation.getArguments(), write.userArg());
+            if (userId != null) {
+                router.getObject().markWrite(userId);
+            }
+            return result;
+        }
+
+        ReplicaRead read = method.getAnnotation(ReplicaRead.class);
+        if (read == null || ReadWriteRoutingDataSource.currentReplica() != null
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return invocation.proceed();
+        }
+        Integer replica = router.getObject().chooseReplica(userId(invocation.getArguments(), read.userArg()));
+        if (replica == null) {
+            return invocation.proceed();
+        }
+        ReadWriteRoutingDataSource.useReplica(replica);
+        try {
+            return invocation.proceed();
+        } finally {
+            ReadWriteRoutingDataSource.useReplica(null);
+        }
+    }
+
+    private static Long userId(Object[] arguments, int index) {
+        if (index < 0 || index >= arguments.length) {
+            return null;
+        }
+        return switch (arguments[index]) {
+            case Long id -> id;
+            case User user -> user.getId();
+            case null, default -> null;
+        };
+    }
+}
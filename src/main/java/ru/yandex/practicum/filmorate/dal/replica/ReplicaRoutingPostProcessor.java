@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+// Оборачивает методы с @ReplicaRead и @ReadYourWrites. Совет ставится перед транзакционным,
+// чтобы источник выбирался до открытия транзакции, а изменение отмечалось уже после коммита.
+@Component
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'jdbc' and ${filmorate.replica.enabled:false}")
+public class ReplicaRoutingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        ComposablePointcut pointcut =
+                new ComposablePointcut(AnnotationMatchingPointcut.forMethodAnnotation(ReplicaRead.class))
+                        .union(AnnotationMatchingPointcut.forMethodAnnotation(ReadYourWrites.class));
+        this.advisor = new DefaultPointcutAdvisor(pointcut,
+                new ReplicaRoutingInterceptor(beanFactory.getBeanProvider(ReplicaRouter.class)));
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+}
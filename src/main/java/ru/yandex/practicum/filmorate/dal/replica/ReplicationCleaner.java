@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// При отключённых репликах убирает из основной базы триггеры и журнал, оставшиеся от запуска с репликами:
+// иначе каждое изменение likes, films и users продолжало бы писать в replication_log, который никто не читает.
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'jdbc' and !${filmorate.replica.enabled:false}")
+@RequiredArgsConstructor
+public class ReplicationCleaner {
+    static final String TRIGGER_SUFFIX = "_replication";
+
+    private static final String FIND_TRIGGERS_QUERY = """
+            SELECT COUNT(*) FROM INFORMATION_SCHEMA.TRIGGERS
+            WHERE TRIGGER_SCHEMA = SCHEMA() AND TRIGGER_NAME LIKE '%\\_REPLICATION' ESCAPE '\\'
+            """;
+    private static final String DROP_TRIGGER_QUERY = "DROP TRIGGER IF EXISTS %s" + TRIGGER_SUFFIX;
+    private static final String DROP_LOG_QUERY = "DROP TABLE IF EXISTS replication_log";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void dropReplicationArtifacts() {
+        Integer triggers = jdbcTemplate.queryForObject(FIND_TRIGGERS_QUERY, Integer.class);
+        Replicator.TABLES.keySet().forEach(table -> jdbcTemplate.execute(DROP_TRIGGER_QUERY.formatted(table)));
+        jdbcTemplate.execute(DROP_LOG_QUERY);
+        if (triggers != null && triggers > 0) {
+            log.info("Реплики отключены: удалены триггеры репликации ({}) и replication_log", triggers);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Внутрипроцессная репликация основной базы H2 в реплики для локального запуска и тестов.
+// Триггеры ChangeCaptureTrigger пишут ключи изменённых строк в replication_log; каждый цикл забирает
+// пачку ключей, перечитывает текущие строки с основной базы, применяет их ко всем репликам
+// (MERGE или DELETE, если строки уже нет) и удаляет пачку из журнала. Записи, чьи транзакции ещё
+// не зафиксированы, не видны циклу и будут подобраны следующим, поэтому журнал читается без позиции.
+// Реплика согласована как минимум на момент начала последнего успешного цикла — это и есть её отметка.
+@Slf4j
+@Component
+@ConditionalOnExpression("'${filmorate.storage:jdbc}' == 'jdbc' and ${filmorate.replica.enabled:false}")
+public class Replicator implements SmartLifecycle {
+    // Реплицируемые таблицы и их первичные ключи.
+    static final Map<String, String> TABLES = tables();
+    private static final int MAX_BATCHES_PER_CYCLE = 100;
+
+    private static final String CREATE_LOG_QUERY = """
+            CREATE TABLE IF NOT EXISTS replication_log (
+                seq BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                table_name VARCHAR(64) NOT NULL,
+                row_id BIGINT NOT NULL
+            )
+            """;
+    private static final String CREATE_TRIGGER_QUERY =
+            "CREATE TRIGGER IF NOT EXISTS %s" + ReplicationCleaner.TRIGGER_SUFFIX + " AFTER INSERT, UPDATE, DELETE ON %s FOR EACH ROW CALL \""
+                    + ChangeCaptureTrigger.class.getName() + "\"";
+    private static final String CLEAR_LOG_QUERY = "DELETE FROM replication_log";
+    private static final String PENDING_CHANGES_QUERY =
+            "SELECT seq, table_name, row_id FROM replication_log ORDER BY seq LIMIT ?";
+    private static final String DELETE_APPLIED_QUERY = "DELETE FROM replication_log WHERE seq = ANY(?)";
+    private static final String FIND_ROWS_QUERY = "SELECT * FROM %s WHERE %s = ANY(?)";
+    private static final String DELETE_ROWS_QUERY = "DELETE FROM %s WHERE %s = ANY(?)";
+    private static final String DROP_IDENTITY_QUERY = "ALTER TABLE %s ALTER COLUMN %s DROP IDENTITY";
+    // Строки приходят в произвольном порядке таблиц, а каскады уже отражены в журнале основной базы.
+    private static final String DISABLE_REFERENTIAL_INTEGRITY = "SET REFERENTIAL_INTEGRITY FALSE";
+
+    private final HikariDataSource primaryDataSource;
+    private final List<HikariDataSource> replicaDataSources = new ArrayList<>();
+    private final JdbcTemplate primary;
+    private final List<JdbcTemplate> replicas = new ArrayList<>();
+    private final List<TransactionTemplate> replicaTransactions = new ArrayList<>();
+    private final List<String> replicaUrls;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final AtomicLongArray appliedUpTo;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public Replicator(DataSourceProperties primaryProperties,
+                      @Value("${filmorate.replica.urls}") List<String> replicaUrls,
+                      @Value("${filmorate.replica.username:${spring.datasource.username:sa}}") String username,
+                      @Value("${filmorate.replica.password:${spring.datasource.password:}}") String password,
+                      @Value("${filmorate.replica.poll-interval:100ms}") Duration pollInterval,
+                      @Value("${filmorate.replica.batch-size:1000}") int batchSize) {
+        if (replicaUrls.isEmpty()) {
+            throw new IllegalStateException("filmorate.replica.urls не задан");
+        }
+        this.replicaUrls = List.copyOf(replicaUrls);
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.appliedUpTo = new AtomicLongArray(replicaUrls.size());
+
+        primaryDataSource = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaryDataSource.setPoolName("primary");
+        primary = new JdbcTemplate(primaryDataSource);
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrls.get(i))
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSource.setPoolName("replica-" + i);
+            replicaDataSources.add(dataSource);
+            replicas.add(new JdbcTemplate(dataSource));
+            replicaTransactions.add(new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+            appliedUpTo.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public HikariDataSource getPrimary() {
+        return primaryDataSource;
+    }
+
+    public List<HikariDataSource> getReplicas() {
+        return replicaDataSources;
+    }
+
+    public List<String> getReplicaUrls() {
+        return replicaUrls;
+    }
+
+    public int replicaCount() {
+        return replicas.size();
+    }
+
+    // Момент (System.nanoTime), на который реплика гарантированно содержит все зафиксированные изменения.
+    public long appliedUpTo(int replica) {
+        return appliedUpTo.get(replica);
+    }
+
+    // Запускается после инициализации схемы основной базы (spring.sql.init) и создания всех бинов.
+    @Override
+    public void start() {
+        primary.execute(CREATE_LOG_QUERY);
+        TABLES.keySet().forEach(table -> primary.execute(CREATE_TRIGGER_QUERY.formatted(table, table)));
+
+        long copyStartedAt = System.nanoTime();
+        primary.update(CLEAR_LOG_QUERY);
+        for (int i = 0; i < replicas.size(); i++) {
+            prepareReplica(i);
+            copyAll(i);
+            appliedUpTo.set(i, copyStartedAt);
+        }
+        log.info("Реплики {} синхронизированы с основной базой", replicaUrls);
+
+        if (!pollInterval.isZero()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replicator").daemon()
+                    .factory());
+            scheduler.scheduleWithFixedDelay(this::replicateSafely, pollInterval.toMillis(), pollInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @PreDestroy
+    public void close() {
+        replicaDataSources.forEach(HikariDataSource::close);
+        primaryDataSource.close();
+    }
+
+    // Один цикл репликации; при poll-interval=0 вызывается только явно (в тестах).
+    public synchronized void replicateOnce() {
+        long cycleStartedAt = System.nanoTime();
+        boolean[] failed = new boolean[replicas.size()];
+        for (int batch = 0; batch < MAX_BATCHES_PER_CYCLE; batch++) {
+            List<Long> seqs = new ArrayList<>();
+            Map<String, Set<Long>> keysByTable = new LinkedHashMap<>();
+            primary.query(PENDING_CHANGES_QUERY, rs -> {
+                String table = rs.getString("table_name");
+                long rowId = rs.getLong("row_id");
+                seqs.add(rs.getLong("seq"));
+                if (TABLES.containsKey(table)) {
+                    keysByTable.computeIfAbsent(table, k -> new HashSet<>()).add(rowId);
+                }
+            }, batchSize);
+            if (seqs.isEmpty()) {
+                markApplied(cycleStartedAt, failed);
+                return;
+            }
+
+            Map<String, List<Map<String, Object>>> rowsByTable = new LinkedHashMap<>();
+            keysByTable.forEach((table, keys) -> rowsByTable.put(table,
+                    primary.queryForList(FIND_ROWS_QUERY.formatted(table, TABLES.get(table)), (Object) keys.toArray())));
+
+            boolean appliedEverywhere = true;
+            for (int i = 0; i < replicas.size(); i++) {
+                try {
+                    applyChanges(i, keysByTable, rowsByTable);
+                } catch (DataAccessException e) {
+                    log.warn("Не удалось применить изменения к реплике {}: {}", replicaUrls.get(i), e.getMessage());
+                    failed[i] = true;
+                    appliedEverywhere = false;
+                }
+            }
+            if (!appliedEverywhere) {
+                // Журнал не очищается: следующий цикл повторит пачку для всех реплик.
+                return;
+            }
+            primary.update(DELETE_APPLIED_QUERY, (Object) seqs.toArray());
+            if (seqs.size() < batchSize) {
+                markApplied(cycleStartedAt, failed);
+                return;
+            }
+        }
+    }
+
+    private void replicateSafely() {
+        try {
+            replicateOnce();
+        } catch (RuntimeException e) {
+            log.warn("Цикл репликации завершился ошибкой", e);
+        }
+    }
+
+    private void markApplied(long cycleStartedAt, boolean[] failed) {
+        for (int i = 0; i < failed.length; i++) {
+            if (!failed[i]) {
+                appliedUpTo.set(i, cycleStartedAt);
+            }
+        }
+    }
+
+    private void prepareReplica(int replica) {
+        JdbcTemplate jdbcTemplate = replicas.get(replica);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(replicaDataSources.get(replica));
+        jdbcTemplate.execute(DISABLE_REFERENTIAL_INTEGRITY);
+        // Ключи приходят с основной базы, а столбцы GENERATED ALWAYS не принимают явных значений.
+        TABLES.forEach((table, key) -> jdbcTemplate.execute(DROP_IDENTITY_QUERY.formatted(table, key)));
+    }
+
+    private void copyAll(int replica) {
+        JdbcTemplate jdbcTemplate = replicas.get(replica);
+        replicaTransactions.get(replica).executeWithoutResult(status -> TABLES.forEach((table, key) -> {
+            jdbcTemplate.update("DELETE FROM " + table);
+            merge(jdbcTemplate, table, key, primary.queryForList("SELECT * FROM " + table));
+        }));
+    }
+
+    private void applyChanges(int replica, Map<String, Set<Long>> keysByTable,
+                              Map<String, List<Map<String, Object>>> rowsByTable) {
+        JdbcTemplate jdbcTemplate = replicas.get(replica);
+        replicaTransactions.get(replica).executeWithoutResult(status -> keysByTable.forEach((table, keys) -> {
+            String key = TABLES.get(table);
+            List<Map<String, Object>> rows = rowsByTable.get(table);
+            Set<Long> deleted = new HashSet<>(keys);
+            rows.forEach(row -> deleted.remove(((Number) row.get(key)).longValue()));
+            merge(jdbcTemplate, table, key, rows);
+            if (!deleted.isEmpty()) {
+                jdbcTemplate.update(DELETE_ROWS_QUERY.formatted(table, key), (Object) deleted.toArray());
+            }
+        }));
+    }
+
+    private static void merge(JdbcTemplate jdbcTemplate, String table, String key, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.getFirst().keySet());
+        StringJoiner placeholders = new StringJoiner(", ");
+        columns.forEach(column -> placeholders.add("?"));
+        String sql = "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (" + key + ") VALUES ("
+                + placeholders + ")";
+        jdbcTemplate.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList());
+    }
+
+    private static Map<String, String> tables() {
+        Map<String, String> tables = new LinkedHashMap<>();
+        tables.put("mpa_rating", "rating_id");
+        tables.put("genres", "genre_id");
+        tables.put("users", "user_id");
+        tables.put("films", "film_id");
+        tables.put("likes", "like_id");
+        tables.put("friends", "id");
+        tables.put("schema_version", "id");
+        return tables;
+    }
+}
@@ -1,11 +1,17 @@
 package ru.yandex.practicum.filmorate.handlers;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.yandex.practicum.filmorate.exception.ExportLimitExceededException;
 import ru.yandex.practicum.filmorate.exception.FilmAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.InvalidDurationException;
@@ -15,11 +21,16 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
 import ru.yandex.practicum.filmorate.model.ErrorResponse;
 
+import java.sql.SQLException;
+import java.util.Set;
+
 @RestControllerAdvice
 @Slf4j
 public class ErrorHandler {
+    private static final Set<String> MISSING_REFERENCE_SQL_STATES = Set.of("23503", "23506");
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND)
@@ -42,6 +53,29 @@ public class ErrorHandler {
         return ErrorResponse.builder().errorCode(HttpStatus.NOT_FOUND.value()).description(exception.getMessage()).build();
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleDuplicateKeyException(DuplicateKeyException exception) {
+        log.error(exception.getMessage());
+        return ErrorResponse.builder()
+                .errorCode(HttpStatus.CONFLICT.value()).description("Запись уже существует").build();
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(
+            DataIntegrityViolationException exception) {
+        log.error(exception.getMessage());
+        HttpStatus status = HttpStatus.CONFLICT;
+        String description = "Нарушено ограничение целостности данных";
+        if (NestedExceptionUtils.getMostSpecificCause(exception) instanceof SQLException sqlException
+                && MISSING_REFERENCE_SQL_STATES.contains(sqlException.getSQLState())) {
+            status = HttpStatus.NOT_FOUND;
+            description = "Связанный объект не найден";
+        }
+        return ResponseEntity.status(status)
+                .body(ErrorResponse.builder().errorCode(status.value()).description(description).build());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleUncaught(Exception exception) {
@@ -64,6 +98,22 @@ public class ErrorHandler {
         return ErrorResponse.builder().errorCode(HttpStatus.CONFLICT.value()).description(exception.getMessage()).build();
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleVersionConflictException(VersionConflictException exception) {
+        log.warn(exception.getMessage());
+        return ErrorResponse.builder().errorCode(HttpStatus.CONFLICT.value()).description(exception.getMessage()).build();
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleExportLimitExceededException(ExportLimitExceededException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ErrorResponse.builder()
+                        .errorCode(HttpStatus.SERVICE_UNAVAILABLE.value()).description(exception.getMessage()).build());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleInvalidDurationException(InvalidDurationException exception) {
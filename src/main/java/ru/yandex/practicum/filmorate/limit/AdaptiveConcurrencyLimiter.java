@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// AIMD: пока запросы укладываются в целевую задержку и лимит реально выбирается, он растёт на 1/limit за запрос
+// (примерно +1 за «окно»), при превышении задержки — умножается на backoffRatio.
+public class AdaptiveConcurrencyLimiter {
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicLong rejected = new AtomicLong();
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyTarget, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Некорректные границы лимита " + name + ": "
+                    + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Коэффициент снижения лимита " + name + " должен быть в (0, 1)");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release(long latencyNanos) {
+        boolean saturated = inFlight * 2 >= (int) limit;
+        inFlight--;
+        if (latencyNanos > latencyTargetNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (saturated) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Чтения и записи /films и /users ограничиваются независимо: шторм лайков упирается в лимит записи
+// и получает быстрый 429, а GET /films/popular и /films/{id} продолжают обслуживаться из своего бюджета.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper,
+                                  @Value("${filmorate.limit.read.initial:64}") int readInitial,
+                                  @Value("${filmorate.limit.read.min:8}") int readMin,
+                                  @Value("${filmorate.limit.read.max:256}") int readMax,
+                                  @Value("${filmorate.limit.read.latency-target:PT0.2S}") Duration readTarget,
+                                  @Value("${filmorate.limit.write.initial:8}") int writeInitial,
+                                  @Value("${filmorate.limit.write.min:1}") int writeMin,
+                                  @Value("${filmorate.limit.write.max:64}") int writeMax,
+                                  @Value("${filmorate.limit.write.latency-target:PT0.1S}") Duration writeTarget,
+                                  @Value("${filmorate.limit.backoff-ratio:0.9}") double backoffRatio) {
+        this.objectMapper = objectMapper;
+        this.readLimiter = new AdaptiveConcurrencyLimiter("read", readInitial, readMin, readMax,
+                readTarget, backoffRatio);
+        this.writeLimiter = new AdaptiveConcurrencyLimiter("write", writeInitial, writeMin, writeMax,
+                writeTarget, backoffRatio);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean limited = path.startsWith("/films") || path.startsWith("/users");
+        return !limited || path.endsWith("/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod());
+        AdaptiveConcurrencyLimiter limiter = write ? writeLimiter : readLimiter;
+        if (!limiter.tryAcquire()) {
+            reject(request, response, write ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE, limiter);
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - startedAt);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                        AdaptiveConcurrencyLimiter limiter) throws IOException {
+        log.debug("Запрос {} {} отклонён: лимит {} = {}, отклонено всего {}", request.getMethod(),
+                request.getRequestURI(), limiter.getName(), limiter.getLimit(), limiter.getRejected());
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), ErrorResponse.builder()
+                .errorCode(status.value())
+                .description("Сервер перегружен, повторите запрос позже")
+                .build());
+    }
+}
@@ -11,8 +11,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -35,7 +35,10 @@ public class Film {
     @NotNull(message = "Рейтинг MPA обязателен")
     private Mpa mpa;
 
-    private Set<Genre> genres = new LinkedHashSet<>();
+    private Set<Genre> genres = Collections.emptySet();
+
+    // Необязательна в PUT: если передана, обновление применяется только к этой версии фильма.
+    private Long version;
 
     @JsonIgnore
    private Set<Long> userIds = new HashSet<>();
@@ -43,12 +46,9 @@ public class Film {
     @JsonIgnore
     private Long rate = 0L;
 
+    // Набор не копируется: мапперы передают общие неизменяемые наборы жанров, одинаковые для многих фильмов.
     public void setGenres(Set<Genre> genres) {
-        if (genres == null || genres.isEmpty()) {
-            this.genres = new LinkedHashSet<>();
-        } else {
-            this.genres = new LinkedHashSet<>(genres);
-        }
+        this.genres = genres != null ? genres : Collections.emptySet();
     }
 
     public Integer getMpaId() {
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// distance == null и пустой path: пути нет в пределах maxDepth (complete) или бюджет поиска исчерпан (!complete).
+@Data
+@AllArgsConstructor
+public class FriendPath {
+    private Integer distance;
+    private List<Long> path;
+    private boolean complete;
+    private int visited;
+}
@@ -1,15 +1,16 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
 
-@Data
-@NoArgsConstructor
+@Value
 public class Genre {
-    private Integer id;
-    private String name;
+    Integer id;
+    String name;
 
-    public Genre(Integer id, String name) {
+    @JsonCreator
+    public Genre(@JsonProperty("id") Integer id, @JsonProperty("name") String name) {
         this.id = id;
         this.name = name;
     }
@@ -19,4 +20,4 @@ public class Genre {
             throw new IllegalArgumentException("Жанр не может быть Null");
         }
     }
-}
\ No newline at end of file
+}
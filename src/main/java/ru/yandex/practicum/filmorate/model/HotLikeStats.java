@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class HotLikeStats {
+    private List<Long> hotFilms;
+    private long pendingLikes;
+    private long bufferedLikes;
+    private long flushedLikes;
+    private long batches;
+    private long droppedLikes;
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Друг с числом общих друзей; в JSON поля пользователя идут на верхнем уровне рядом с mutualFriends.
+@Data
+@AllArgsConstructor
+public class MutualFriend {
+    @JsonUnwrapped
+    private User user;
+    private int mutualFriends;
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PurgeStats {
+    private int pendingFilms;
+    private int pendingUsers;
+    private long filmsPurged;
+    private long usersPurged;
+    private long rowsDeleted;
+    private long chunks;
+}
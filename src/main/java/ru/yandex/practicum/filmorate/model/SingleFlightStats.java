@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SingleFlightStats {
+    private String name;
+    private long calls;
+    private long executions;
+    private long coalesced;
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Одна строка на запрос в логгер filmorate.access (асинхронный аппендер в logback-spring.xml).
+// Маршрут берётся как шаблон (/films/{id}), а тело запроса пишется только для доли payload-sample-rate.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class AccessLogFilter extends OncePerRequestFilter {
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("filmorate.access");
+
+    private final double payloadSampleRate;
+    private final int maxPayloadLength;
+
+    public AccessLogFilter(@Value("${filmorate.access-log.payload-sample-rate:0.0}") double payloadSampleRate,
+                           @Value("${filmorate.access-log.max-payload-length:1024}") int maxPayloadLength) {
+        this.payloadSampleRate = payloadSampleRate;
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!ACCESS_LOG.isInfoEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ContentCachingRequestWrapper sampled = isSampled()
+                ? new ContentCachingRequestWrapper(request, maxPayloadLength) : null;
+        long startedAt = System.nanoTime();
+        try {
+            chain.doFilter(sampled != null ? sampled : request, response);
+        } finally {
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt);
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (route == null) {
+                route = request.getRequestURI();
+            }
+            if (sampled == null) {
+                ACCESS_LOG.info("method={} route={} status={} latencyUs={}",
+                        request.getMethod(), route, response.getStatus(), latencyMicros);
+            } else {
+                ACCESS_LOG.info("method={} route={} status={} latencyUs={} uri={} payload={}",
+                        request.getMethod(), route, response.getStatus(), latencyMicros, request.getRequestURI(),
+                        new String(sampled.getContentAsByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private boolean isSampled() {
+        return payloadSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < payloadSampleRate;
+    }
+}
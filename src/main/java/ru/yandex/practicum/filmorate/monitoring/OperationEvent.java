@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(OperationEvent.NAME)
+@Label("Filmorate Operation")
+@Category("Filmorate")
+@Description("Вызов публичного метода репозитория или сервиса")
+@StackTrace(false)
+class OperationEvent extends Event {
+    static final String NAME = "ru.yandex.practicum.filmorate.Operation";
+
+    @Label("Layer")
+    String layer;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Entity Ids")
+    String entityIds;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Пока запись JFR не идёт, isEnabled() == false и вызов стоит одной проверки.
+// Строка с id собирается уже после end(), только для событий, которые пройдут порог записи.
+class OperationEventInterceptor implements MethodInterceptor {
+    private static final int MAX_IDS = 10;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        OperationEvent event = new OperationEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+
+        event.begin();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                Class<?> targetClass = AopUtils.getTargetClass(invocation.getThis());
+                event.layer = AnnotatedElementUtils.hasAnnotation(targetClass, Repository.class)
+                        ? "repository" : "service";
+                event.operation = targetClass.getSimpleName() + "." + invocation.getMethod().getName();
+                event.entityIds = entityIds(invocation.getArguments());
+                event.rows = rows(result);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private static String entityIds(Object[] arguments) {
+        StringBuilder ids = new StringBuilder();
+        for (Object argument : arguments) {
+            if (argument instanceof Collection<?> collection) {
+                int appended = 0;
+                for (Object element : collection) {
+                    if (appended++ == MAX_IDS) {
+                        ids.append(",…(").append(collection.size()).append(')');
+                        break;
+                    }
+                    appendId(ids, element);
+                }
+            } else {
+                appendId(ids, argument);
+            }
+        }
+        return ids.toString();
+    }
+
+    private static void appendId(StringBuilder ids, Object value) {
+        Object id = switch (value) {
+            case Long l -> l;
+            case Integer i -> i;
+            case Film film -> film.getId();
+            case User user -> user.getId();
+            case null, default -> null;
+        };
+        if (id != null) {
+            if (!ids.isEmpty()) {
+                ids.append(',');
+            }
+            ids.append(id);
+        }
+    }
+
+    private static int rows(Object result) {
+        return switch (result) {
+            case null -> 0;
+            case Collection<?> collection -> collection.size();
+            case Map<?, ?> map -> map.size();
+            case Boolean found -> found ? 1 : 0;
+            default -> 1;
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+// Оборачивает публичные методы @Repository и @Service приложения в OperationEvent.
+// Совет ставится перед существующими (транзакции, трансляция исключений), чтобы длительность включала их.
+@Component
+@ConditionalOnProperty(name = "filmorate.jfr.enabled", havingValue = "true", matchIfMissing = true)
+public class OperationEventPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+    private static final String APPLICATION_PACKAGE = "ru.yandex.practicum.filmorate.";
+
+    public OperationEventPostProcessor() {
+        ClassFilter stereotypes = new AnnotationClassFilter(Repository.class, true);
+        ClassFilter applicationClasses = clazz -> clazz.getName().startsWith(APPLICATION_PACKAGE);
+        ComposablePointcut pointcut = new ComposablePointcut(stereotypes)
+                .union(new AnnotationClassFilter(Service.class, true))
+                .intersection(applicationClasses)
+                .intersection(new StaticMethodMatcher() {
+                    @Override
+                    public boolean matches(Method method, Class<?> targetClass) {
+                        return Modifier.isPublic(method.getModifiers())
+                                && method.getDeclaringClass() != Object.class;
+                    }
+                });
+        this.advisor = new DefaultPointcutAdvisor(pointcut, new OperationEventInterceptor());
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+}
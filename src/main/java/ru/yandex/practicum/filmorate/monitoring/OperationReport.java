@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Сводка по OperationEvent из файла .jfr, отсортированная по суммарному времени:
+// java -cp target/classes ru.yandex.practicum.filmorate.monitoring.OperationReport recording.jfr [top]
+public class OperationReport {
+    private static final int DEFAULT_TOP = 20;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Использование: OperationReport <recording.jfr> [top]");
+            System.exit(2);
+        }
+        int top = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TOP;
+        print(summarize(Path.of(args[0])), top, System.out);
+    }
+
+    public static List<OperationSummary> summarize(Path recording) throws IOException {
+        // События не копятся: по каждой операции держим только длительности и счётчики
+        Map<String, Accumulator> byOperation = new HashMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                if (OperationEvent.NAME.equals(event.getEventType().getName())) {
+                    byOperation.computeIfAbsent(event.getString("operation"),
+                            key -> new Accumulator(event.getString("layer"))).add(event);
+                }
+            }
+        }
+
+        List<OperationSummary> summaries = new ArrayList<>();
+        byOperation.forEach((operation, accumulator) -> summaries.add(accumulator.toSummary(operation)));
+        summaries.sort(Comparator.comparing(OperationSummary::getTotal).reversed());
+        return summaries;
+    }
+
+    static void print(List<OperationSummary> summaries, int top, PrintStream out) {
+        out.printf("%-45s %-10s %8s %6s %10s %10s %10s %10s %10s%n",
+                "operation", "layer", "count", "fail", "rows", "total ms", "p50 ms", "p99 ms", "max ms");
+        summaries.stream().limit(top).forEach(summary -> out.printf(
+                "%-45s %-10s %8d %6d %10d %10.1f %10.3f %10.3f %10.3f%n",
+                summary.getOperation(), summary.getLayer(), summary.getCount(), summary.getFailures(),
+                summary.getRows(), millis(summary.getTotal()), millis(summary.getP50()),
+                millis(summary.getP99()), millis(summary.getMax())));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+
+    private static class Accumulator {
+        private final String layer;
+        private long[] nanos = new long[16];
+        private int count;
+        private long failures;
+        private long rows;
+        private long total;
+
+        Accumulator(String layer) {
+            this.layer = layer;
+        }
+
+        void add(RecordedEvent event) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            long duration = event.getDuration().toNanos();
+            nanos[count++] = duration;
+            total += duration;
+            rows += event.getInt("rows");
+            if (event.getBoolean("failed")) {
+                failures++;
+            }
+        }
+
+        OperationSummary toSummary(String operation) {
+            long[] sorted = count == nanos.length ? nanos : Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            OperationSummary summary = new OperationSummary();
+            summary.setOperation(operation);
+            summary.setLayer(layer);
+            summary.setCount(count);
+            summary.setFailures(failures);
+            summary.setRows(rows);
+            summary.setTotal(Duration.ofNanos(total));
+            summary.setP50(Duration.ofNanos(percentile(sorted, 0.50)));
+            summary.setP99(Duration.ofNanos(percentile(sorted, 0.99)));
+            summary.setMax(Duration.ofNanos(sorted[count - 1]));
+            return summary;
+        }
+    }
+
+    @Data
+    public static class OperationSummary {
+        private String operation;
+        private String layer;
+        private long count;
+        private long failures;
+        private long rows;
+        private Duration total;
+        private Duration p50;
+        private Duration p99;
+        private Duration max;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+@Lazy(false)
+public class StartupTimer extends OncePerRequestFilter implements ApplicationListener<ApplicationReadyEvent> {
+    private final AtomicBoolean firstRequestServed = new AtomicBoolean();
+    private volatile long runStartedAtMillis;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        Duration timeTaken = event.getTimeTaken();
+        long readyAt = System.currentTimeMillis();
+        runStartedAtMillis = readyAt - (timeTaken != null ? timeTaken.toMillis() : 0);
+        log.info("Приложение готово к работе: {} мс с начала запуска контекста, {} мс с запуска JVM",
+                readyAt - runStartedAtMillis, readyAt - jvmStartedAtMillis());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+        if (!firstRequestServed.get() && firstRequestServed.compareAndSet(false, true)) {
+            long servedAt = System.currentTimeMillis();
+            log.info("Первый запрос {} {} обработан: {} мс с начала запуска контекста, {} мс с запуска JVM",
+                    request.getMethod(), request.getRequestURI(),
+                    servedAt - runStartedAtMillis, servedAt - jvmStartedAtMillis());
+        }
+    }
+
+    private long jvmStartedAtMillis() {
+        return ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.dal.EdgeSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+// Пишет пары id сразу в Writer: строка NDJSON или CSV собирается в переиспользуемом буфере символов,
+// без промежуточных объектов на строку результата.
+class EdgeWriter implements EdgeSink {
+    private final Writer writer;
+    private final char[] prefix;
+    private final char[] separator;
+    private final char[] suffix;
+    private final char[] digits = new char[20];
+    private long rows;
+
+    EdgeWriter(ExportFormat format, Writer writer, String fromColumn, String toColumn) {
+        this.writer = writer;
+        if (format == ExportFormat.NDJSON) {
+            prefix = ("{\"" + fromColumn + "\":").toCharArray();
+            separator = (",\"" + toColumn + "\":").toCharArray();
+            suffix = "}\n".toCharArray();
+        } else {
+            prefix = new char[0];
+            separator = new char[]{','};
+            suffix = new char[]{'\n'};
+            write(fromColumn + "," + toColumn + "\n");
+        }
+    }
+
+    @Override
+    public void accept(long from, long to) {
+        try {
+            writer.write(prefix);
+            writeLong(from);
+            writer.write(separator);
+            writeLong(to);
+            writer.write(suffix);
+            rows++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value < 0) {
+            write(Long.toString(value));
+            return;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        writer.write(digits, position, digits.length - position);
+    }
+
+    private void write(String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
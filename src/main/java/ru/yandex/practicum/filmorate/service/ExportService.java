@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
+import ru.yandex.practicum.filmorate.dal.replica.ReplicaRead;
+import ru.yandex.practicum.filmorate.exception.ExportLimitExceededException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.Semaphore;
+
+// Выгрузка держит соединение из общего пула, пока клиент скачивает ответ, поэтому одновременных выгрузок
+// не больше filmorate.export.max-concurrent: лишние сразу получают 503, и пул остаётся обычным запросам.
+@Slf4j
+@Service
+public class ExportService {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final Semaphore exports;
+
+    public ExportService(FilmStorage filmStorage,
+                         UserStorage userStorage,
+                         @Value("${filmorate.export.max-concurrent:2}") int maxConcurrent) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.exports = new Semaphore(maxConcurrent);
+    }
+
+    @ReplicaRead
+    public long exportLikes(ExportFormat format, ExportOutput output) throws IOException {
+        acquire();
+        try (Writer writer = output.open()) {
+            EdgeWriter edges = new EdgeWriter(format, writer, "filmId", "userId");
+            filmStorage.forEachLike(edges);
+            log.info("Выгружено лайков: {}", edges.getRows());
+            return edges.getRows();
+        } finally {
+            exports.release();
+        }
+    }
+
+    @ReplicaRead
+    public long exportFriends(ExportFormat format, ExportOutput output) throws IOException {
+        acquire();
+        try (Writer writer = output.open()) {
+            EdgeWriter edges = new EdgeWriter(format, writer, "userId", "friendId");
+            userStorage.forEachFriendship(edges);
+            log.info("Выгружено дружеских связей: {}", edges.getRows());
+            return edges.getRows();
+        } finally {
+            exports.release();
+        }
+    }
+
+    private void acquire() {
+        if (!exports.tryAcquire()) {
+            throw new ExportLimitExceededException("Слишком много одновременных выгрузок, повторите запрос позже");
+        }
+    }
+
+    // Ответ открывается только после получения разрешения, чтобы отказ ещё можно было отдать как 503.
+    @FunctionalInterface
+    public interface ExportOutput {
+        Writer open() throws IOException;
+    }
+}
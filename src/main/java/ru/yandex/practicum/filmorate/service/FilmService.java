@@ -2,74 +2,144 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.dal.FilmRepository;
-import ru.yandex.practicum.filmorate.dal.GenreRepository;
-import ru.yandex.practicum.filmorate.dal.MpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.replica.ReadYourWrites;
+import ru.yandex.practicum.filmorate.dal.replica.ReplicaRead;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.InvalidDurationException;
 import ru.yandex.practicum.filmorate.exception.InvalidReleaseDateException;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.SingleFlightStats;
 
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class FilmService {
     private static final LocalDate FILM_BIRTHDAY = LocalDate.of(1895, 12, 28);
+    private static final int MAX_IDS_PER_REQUEST = 500;
 
-    private final FilmRepository filmRepository;
-    private final GenreRepository genreRepository;
-    private final MpaRepository mpaRepository;
+    private final FilmStorage filmStorage;
+    private final LikeStreamService likeStreamService;
+    private final PurgeService purgeService;
+    private final HotLikeService hotLikeService;
+    private final SingleFlight<Long, Film> getFlight = new SingleFlight<>("films.get");
+    private final SingleFlight<Integer, List<Film>> popularFlight = new SingleFlight<>("films.popular");
 
+    @Transactional
     public Film create(Film film) {
         validate(film);
-        validateGenres(film.getGenreIds());
-        Film saved = filmRepository.create(film);
-        return filmRepository.get(saved.getId());
+        return filmStorage.create(film);
     }
 
+    @ReplicaRead
     public Film get(long id) {
-        if (!filmRepository.exists(id)) {
-            throw new FilmNotFoundException("Film with id=" + id + " not found");
-        }
-        return filmRepository.get(id);
+        return getFlight.execute(id, () -> {
+            if (!filmStorage.exists(id)) {
+                throw new FilmNotFoundException("Film with id=" + id + " not found");
+            }
+            Film film = filmStorage.get(id);
+            hotLikeService.addBufferedLikes(List.of(film));
+            return film;
+        });
     }
 
+    @ReplicaRead
     public List<Film> findAll() {
-        return filmRepository.findAll();
+        List<Film> films = filmStorage.findAll();
+        hotLikeService.addBufferedLikes(films);
+        return films;
     }
 
+    @ReplicaRead
+    public List<Film> findAllById(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > MAX_IDS_PER_REQUEST) {
+            throw new ValidationException("Нельзя запросить больше " + MAX_IDS_PER_REQUEST + " фильмов за раз");
+        }
+
+        Map<Long, Film> filmsById = filmStorage.findAllById(uniqueIds).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        List<Long> missingIds = uniqueIds.stream()
+                .filter(id -> !filmsById.containsKey(id))
+                .toList();
+        if (!missingIds.isEmpty()) {
+            throw new FilmNotFoundException("Films with ids=" + missingIds + " not found");
+        }
+        hotLikeService.addBufferedLikes(filmsById.values());
+        return uniqueIds.stream().map(filmsById::get).toList();
+    }
+
+    @Transactional
     public Film update(Film film) {
         validate(film);
-        if (!filmRepository.exists(film.getId())) {
-            throw new FilmNotFoundException("Film with id=" + film.getId() + " not found");
+        if (film.getId() == null) {
+            throw new ValidationException("Id фильма обязателен");
+        }
+        return filmStorage.update(film);
+    }
+
+    public void delete(long id) {
+        if (!filmStorage.markDeleted(id)) {
+            throw new FilmNotFoundException("Film with id=" + id + " not found");
         }
-        validateGenres(film.getGenreIds());
-        Film updated = filmRepository.update(film);
-        filmRepository.updateGenres(updated.getId(), film.getGenreIds());
-        return filmRepository.get(updated.getId());
+        hotLikeService.evict(id);
+        likeStreamService.onLikeChanged(id);
+        purgeService.requestPurge();
     }
 
+    @ReadYourWrites(userArg = 1)
     public void addLike(long filmId, long userId) {
-        if (!filmRepository.exists(filmId)) {
-            throw new FilmNotFoundException("Film with id=" + filmId + " not found");
+        if (hotLikeService.offer(filmId, userId)) {
+            return;
         }
-        filmRepository.addLike(filmId, userId);
+        filmStorage.addLike(filmId, userId);
+        likeStreamService.onLikeChanged(filmId);
     }
 
+    @ReadYourWrites(userArg = 1)
     public void removeLike(long filmId, long userId) {
-        if (!filmRepository.exists(filmId)) {
-            throw new FilmNotFoundException("Film with id=" + filmId + " not found");
-        }
-        filmRepository.removeLike(filmId, userId);
+        hotLikeService.remove(filmId, userId, () -> filmStorage.removeLike(filmId, userId));
+        likeStreamService.onLikeChanged(filmId);
     }
 
+    @ReplicaRead
     public List<Film> getPopular(int count) {
-        return filmRepository.getPopularFilms(count);
+        return popularFlight.execute(count, () -> withBufferedLikes(filmStorage.getPopularFilms(count), count));
+    }
+
+    public List<SingleFlightStats> getSingleFlightStats() {
+        return List.of(getFlight.getStats(), popularFlight.getStats());
+    }
+
+    // Горячий фильм с лайками в буфере мог ещё не попасть в топ по таблице: он добавляется к кандидатам,
+    // и топ пересортировывается с учётом буфера.
+    private List<Film> withBufferedLikes(List<Film> popular, int count) {
+        Set<Long> bufferedFilmIds = hotLikeService.filmsWithBufferedLikes();
+        if (bufferedFilmIds.isEmpty()) {
+            return popular;
+        }
+        Map<Long, Film> candidates = new LinkedHashMap<>();
+        popular.forEach(film -> candidates.put(film.getId(), film));
+        bufferedFilmIds.removeAll(candidates.keySet());
+        if (!bufferedFilmIds.isEmpty()) {
+            filmStorage.findAllById(bufferedFilmIds).forEach(film -> candidates.put(film.getId(), film));
+        }
+        hotLikeService.addBufferedLikes(candidates.values());
+        return candidates.values().stream()
+                .sorted(Comparator.comparing(Film::getRate).reversed())
+                .limit(count)
+                .toList();
     }
 
     private void validate(Film film) {
@@ -88,18 +158,5 @@ public class FilmService {
         if (film.getMpa() == null || film.getMpa().getId() == null) {
             throw new ValidationException("Рейтинг MPA обязателен");
         }
-        if (mpaRepository.findById(film.getMpa().getId()).isEmpty()) {
-            throw new NotFoundException("Неизвестный рейтинг MPA: " + film.getMpa().getId());
-        }
-    }
-
-    private void validateGenres(Set<Integer> genreIds) {
-        if (genreIds == null) return;
-        List<Integer> invalid = genreIds.stream()
-                .filter(id -> genreRepository.findById(id).isEmpty())
-                .toList();
-        if (!invalid.isEmpty()) {
-            throw new NotFoundException("Жанры не найдены: " + invalid);
-        }
     }
 }
\ No newline at end of file
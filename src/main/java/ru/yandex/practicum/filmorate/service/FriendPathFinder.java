@@ -0,0 +1,232 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendPath;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+// Двунаправленный BFS по рёбрам friends (user_id -> friend_id): прямой обход идёт от id по исходящим рёбрам,
+// обратный — от otherId по входящим, и каждый шаг расширяет меньший фронт целиком одним запросом к хранилищу.
+// Пользователи нумеруются порядковыми номерами по мере обнаружения; посещённые хранятся в BitSet,
+// фронты — в массивах long. Бюджет по узлам и по времени не даёт «хабам» с тысячами друзей занять сервер.
+@Component
+public class FriendPathFinder {
+    private static final int DEADLINE_CHECK_INTERVAL = 4096;
+
+    private final UserStorage userStorage;
+    private final int maxDepth;
+    private final int maxNodes;
+    private final long timeoutNanos;
+
+    public FriendPathFinder(UserStorage userStorage,
+                            @Value("${filmorate.distance.max-depth:6}") int maxDepth,
+                            @Value("${filmorate.distance.max-nodes:200000}") int maxNodes,
+                            @Value("${filmorate.distance.timeout:250ms}") Duration timeout) {
+        this.userStorage = userStorage;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public FriendPath find(long fromId, long toId, int depthLimit) {
+        if (depthLimit < 1 || depthLimit > maxDepth) {
+            throw new ValidationException("maxDepth должен быть от 1 до " + maxDepth);
+        }
+        if (fromId == toId) {
+            return new FriendPath(0, List.of(fromId), true, 1);
+        }
+
+        Search search = new Search(System.nanoTime() + timeoutNanos);
+        Side forward = new Side(search, fromId, false);
+        Side backward = new Side(search, toId, true);
+        try {
+            for (int step = 0; step < depthLimit; step++) {
+                if (forward.frontierSize == 0 || backward.frontierSize == 0) {
+                    break;
+                }
+                Side side = forward.frontierSize <= backward.frontierSize ? forward : backward;
+                Side other = side == forward ? backward : forward;
+                int meeting = side.expand(other);
+                if (meeting >= 0) {
+                    List<Long> path = search.path(meeting, forward, backward);
+                    return new FriendPath(path.size() - 1, path, true, search.size);
+                }
+                search.checkDeadline();
+            }
+        } catch (BudgetExceededException e) {
+            return new FriendPath(null, List.of(), false, search.size);
+        }
+        return new FriendPath(null, List.of(), true, search.size);
+    }
+
+    private static final class BudgetExceededException extends RuntimeException {
+        BudgetExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Общая для обеих сторон нумерация: открытая адресация id -> порядковый номер без упаковки в Long.
+    private final class Search {
+        private final long deadline;
+        private long[] keys = new long[1024];
+        private int[] slots = new int[1024];
+        private long[] ids = new long[512];
+        private int size;
+        private int edges;
+
+        Search(long deadline) {
+            this.deadline = deadline;
+        }
+
+        int ordinalOf(long id) {
+            int mask = keys.length - 1;
+            for (int slot = hash(id) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == id) {
+                    return slots[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        int add(long id) {
+            int ordinal = ordinalOf(id);
+            if (ordinal >= 0) {
+                return ordinal;
+            }
+            if (size >= maxNodes) {
+                throw new BudgetExceededException();
+            }
+            if ((size + 1) * 2 > keys.length) {
+                rehash();
+            }
+            ordinal = size++;
+            if (ordinal == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[ordinal] = id;
+            insert(id, ordinal);
+            return ordinal;
+        }
+
+        void onEdge() {
+            if (++edges % DEADLINE_CHECK_INTERVAL == 0) {
+                checkDeadline();
+            }
+        }
+
+        void checkDeadline() {
+            if (System.nanoTime() - deadline > 0) {
+                throw new BudgetExceededException();
+            }
+        }
+
+        List<Long> path(int meeting, Side forward, Side backward) {
+            List<Long> path = new ArrayList<>();
+            for (int ordinal = meeting; ordinal >= 0; ordinal = forward.parents[ordinal]) {
+                path.add(ids[ordinal]);
+            }
+            Collections.reverse(path);
+            for (int ordinal = backward.parents[meeting]; ordinal >= 0; ordinal = backward.parents[ordinal]) {
+                path.add(ids[ordinal]);
+            }
+            return path;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldSlots = slots;
+            keys = new long[oldKeys.length * 2];
+            slots = new int[oldSlots.length * 2];
+            for (int slot = 0; slot < oldSlots.length; slot++) {
+                if (oldSlots[slot] != 0) {
+                    insert(oldKeys[slot], oldSlots[slot] - 1);
+                }
+            }
+        }
+
+        private void insert(long id, int ordinal) {
+            int mask = keys.length - 1;
+            int slot = hash(id) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = id;
+            slots[slot] = ordinal + 1;
+        }
+
+        private static int hash(long id) {
+            long mixed = id * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+
+    private final class Side {
+        private final Search search;
+        private final boolean incoming;
+        private final BitSet visited = new BitSet();
+        private int[] parents = new int[512];
+        private int[] depths = new int[512];
+        private long[] frontier = new long[16];
+        private int frontierSize;
+        private long[] next;
+        private int nextSize;
+        private int meeting;
+
+        Side(Search search, long startId, boolean incoming) {
+            this.search = search;
+            this.incoming = incoming;
+            visit(search.add(startId), -1, 0);
+            frontier[frontierSize++] = startId;
+        }
+
+        // Расширяет весь текущий фронт на один уровень; возвращает узел встречи с другой стороной или -1.
+        int expand(Side other) {
+            next = new long[Math.max(16, frontierSize)];
+            nextSize = 0;
+            meeting = -1;
+            userStorage.expandFriends(frontier, frontierSize, incoming, (fromId, toId) -> {
+                search.onEdge();
+                int to = search.add(toId);
+                if (visited.get(to)) {
+                    return;
+                }
+                int from = search.ordinalOf(fromId);
+                visit(to, from, depths[from] + 1);
+                // В пределах уровня выбирается встреча, ближайшая к другой стороне: так путь кратчайший.
+                if (other.visited.get(to) && (meeting < 0 || other.depths[to] < other.depths[meeting])) {
+                    meeting = to;
+                }
+                if (nextSize == next.length) {
+                    next = Arrays.copyOf(next, nextSize * 2);
+                }
+                next[nextSize++] = toId;
+            });
+            frontier = next;
+            frontierSize = nextSize;
+            return meeting;
+        }
+
+        private void visit(int ordinal, int parent, int depth) {
+            if (ordinal >= parents.length) {
+                int capacity = Math.max(parents.length * 2, ordinal + 1);
+                parents = Arrays.copyOf(parents, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+            }
+            visited.set(ordinal);
+            parents[ordinal] = parent;
+            depths[ordinal] = depth;
+        }
+    }
+}
@@ -2,7 +2,8 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.dal.GenreRepository;
+import ru.yandex.practicum.filmorate.dal.GenreStorage;
+import ru.yandex.practicum.filmorate.dal.replica.ReplicaRead;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 
@@ -12,14 +13,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class GenreService {
 
-    private final GenreRepository genreRepository;
+    private final GenreStorage genreStorage;
 
+    @ReplicaRead
     public List<Genre> findAll() {
-        return genreRepository.findAll();
+        return genreStorage.findAll();
     }
 
+    @ReplicaRead
     public Genre findById(int id) {
-        return genreRepository.findById(id)
+        return genreStorage.findById(id)
                 .orElseThrow(() -> new NotFoundException("Genre with id=" + id + " not found"));
     }
 }
\ No newline at end of file
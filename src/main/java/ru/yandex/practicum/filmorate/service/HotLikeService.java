@@ -0,0 +1,319 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.HotLikeStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Лайки «горячих» фильмов не пишутся в likes по одному: тысячи одновременных MERGE в один фильм
+// спорят за одни и те же страницы индекса и тормозят лайки всех остальных фильмов.
+// Фильм становится горячим, когда за окно window получает не меньше threshold лайков, и остывает,
+// когда их становится меньше половины порога. Пока фильм горячий, лайки копятся в его наборе
+// в памяти и раз в flush-interval записываются пачками по batch-size одним потоком.
+// Чтения фильмов через FilmService добавляют к лайкам из таблицы ещё не записанные лайки буфера,
+// поэтому принятый лайк виден сразу. Буфер живёт только в памяти: при аварийной остановке
+// процесса не записанные за последний flush-interval лайки теряются (при штатной — дописываются).
+@Slf4j
+@Service
+public class HotLikeService {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final LikeStreamService likeStreamService;
+    private final long threshold;
+    private final Duration window;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Map<Long, LongAdder> requests = new ConcurrentHashMap<>();
+    private final Map<Long, HotFilm> hotFilms = new ConcurrentHashMap<>();
+    private final LongAdder bufferedLikes = new LongAdder();
+    private final LongAdder flushedLikes = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder droppedLikes = new LongAdder();
+    private ScheduledExecutorService worker;
+
+    public HotLikeService(FilmStorage filmStorage,
+                          UserStorage userStorage,
+                          LikeStreamService likeStreamService,
+                          @Value("${filmorate.likes.hot.threshold:0}") long threshold,
+                          @Value("${filmorate.likes.hot.window:PT1S}") Duration window,
+                          @Value("${filmorate.likes.hot.flush-interval:100ms}") Duration flushInterval,
+                          @Value("${filmorate.likes.hot.batch-size:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("filmorate.likes.hot.batch-size должен быть положительным: " + batchSize);
+        }
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.likeStreamService = likeStreamService;
+        this.threshold = threshold;
+        this.window = window;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (threshold <= 0) {
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-likes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::detectQuietly,
+                window.toMillis(), window.toMillis(), TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Буфер дописывается до остановки, чтобы принятые лайки не потерялись.
+    @PreDestroy
+    public void stop() {
+        if (worker == null) {
+            return;
+        }
+        worker.shutdownNow();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        hotFilms.values().forEach(HotFilm::retire);
+        flush();
+    }
+
+    // true — лайк принят в буфер горячего фильма и будет записан фоновым потоком;
+    // false — фильм не горячий, и лайк нужно записать сразу.
+    public boolean offer(long filmId, long userId) {
+        if (threshold <= 0) {
+            return false;
+        }
+        requests.computeIfAbsent(filmId, k -> new LongAdder()).increment();
+        HotFilm hotFilm = hotFilms.get(filmId);
+        if (hotFilm == null) {
+            return false;
+        }
+        // Фильм проверен при переходе в горячие, а пользователь проверяется чтением: оно не спорит с записью.
+        if (!userStorage.exists(userId)) {
+            throw new UserNotFoundException("User with id=" + userId + " not found");
+        }
+        if (!hotFilm.pending.add(userId)) {
+            return true;
+        }
+        // Фильм мог остыть между get и add: если последний сброс этот лайк не забрал, он пишется сразу.
+        if (hotFilm.retired && hotFilm.pending.remove(userId)) {
+            return false;
+        }
+        bufferedLikes.increment();
+        return true;
+    }
+
+    // Удаление ждёт записи пачки горячего фильма, иначе лайк из пачки мог бы вернуться после удаления.
+    public void remove(long filmId, long userId, Runnable removeFromStorage) {
+        HotFilm hotFilm = hotFilms.get(filmId);
+        if (hotFilm == null) {
+            removeFromStorage.run();
+            return;
+        }
+        synchronized (hotFilm) {
+            hotFilm.pending.remove(userId);
+            removeFromStorage.run();
+        }
+    }
+
+    // Удалённый фильм перестаёт быть горячим сразу: новые лайки идут обычным путём и получают 404,
+    // а ещё не записанные лайки буфера отбрасываются. Снова горячим его не сделает detectHotFilms:
+    // он проверяет, что фильм существует.
+    public void evict(long filmId) {
+        requests.remove(filmId);
+        HotFilm hotFilm = hotFilms.remove(filmId);
+        if (hotFilm == null) {
+            return;
+        }
+        hotFilm.retire();
+        synchronized (hotFilm) {
+            droppedLikes.add(hotFilm.pending.size());
+            hotFilm.pending.clear();
+        }
+    }
+
+    public synchronized void detectHotFilms() {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Iterator<Map.Entry<Long, LongAdder>> it = requests.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, LongAdder> entry = it.next();
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                it.remove();
+            } else {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        counts.forEach((filmId, count) -> {
+            if (count >= threshold && !hotFilms.containsKey(filmId) && filmStorage.exists(filmId)) {
+                hotFilms.put(filmId, new HotFilm());
+                log.info("Фильм {} стал горячим: {} лайков за {}", filmId, count, window);
+            }
+        });
+        for (Map.Entry<Long, HotFilm> entry : hotFilms.entrySet()) {
+            if (counts.getOrDefault(entry.getKey(), 0L) * 2 < threshold) {
+                entry.getValue().retire();
+                log.info("Фильм {} остыл", entry.getKey());
+            }
+        }
+    }
+
+    public synchronized void flush() {
+        for (Map.Entry<Long, HotFilm> entry : hotFilms.entrySet()) {
+            long filmId = entry.getKey();
+            HotFilm hotFilm = entry.getValue();
+            int written;
+            synchronized (hotFilm) {
+                written = drain(filmId, hotFilm);
+            }
+            if (written > 0) {
+                likeStreamService.onLikeChanged(filmId);
+            }
+            // Остывший фильм убирается после последнего сброса: лайки, добавленные позже, offer запишет сам.
+            // Пока идёт сброс, фильм остаётся в hotFilms, чтобы его лайки были видны чтениям.
+            if (hotFilm.retired) {
+                synchronized (hotFilm) {
+                    written = drain(filmId, hotFilm);
+                }
+                hotFilms.remove(filmId, hotFilm);
+                if (written > 0) {
+                    likeStreamService.onLikeChanged(filmId);
+                }
+            }
+        }
+    }
+
+    // Дополняет лайкеров и рейтинг горячих фильмов лайками, которые ещё в буфере или пишутся сейчас.
+    public void addBufferedLikes(Collection<Film> films) {
+        if (hotFilms.isEmpty()) {
+            return;
+        }
+        for (Film film : films) {
+            HotFilm hotFilm = hotFilms.get(film.getId());
+            if (hotFilm != null && hotFilm.hasBufferedLikes()) {
+                Set<Long> userIds = new HashSet<>(film.getUserIds());
+                userIds.addAll(hotFilm.pending);
+                userIds.addAll(hotFilm.writing);
+                film.setUserIds(userIds);
+                film.setRate((long) userIds.size());
+            }
+        }
+    }
+
+    // Горячие фильмы, у которых есть ещё не записанные лайки.
+    public Set<Long> filmsWithBufferedLikes() {
+        Set<Long> filmIds = new HashSet<>();
+        hotFilms.forEach((filmId, hotFilm) -> {
+            if (hotFilm.hasBufferedLikes()) {
+                filmIds.add(filmId);
+            }
+        });
+        return filmIds;
+    }
+
+    public HotLikeStats getStats() {
+        long pending = hotFilms.values().stream().mapToLong(hotFilm -> hotFilm.pending.size()).sum();
+        return new HotLikeStats(hotFilms.keySet().stream().sorted().toList(), pending,
+                bufferedLikes.sum(), flushedLikes.sum(), batches.sum(), droppedLikes.sum());
+    }
+
+    // Элементы забираются из набора по одному, поэтому лайк, добавленный во время сброса, не теряется:
+    // его заберёт этот или следующий сброс. Пока пачка пишется, её лайки лежат в writing и остаются видны чтениям.
+    private int drain(long filmId, HotFilm hotFilm) {
+        int written = 0;
+        List<Long> batch = new ArrayList<>(batchSize);
+        Iterator<Long> it = hotFilm.pending.iterator();
+        while (it.hasNext()) {
+            Long userId = it.next();
+            batch.add(userId);
+            hotFilm.writing.add(userId);
+            it.remove();
+            if (batch.size() == batchSize || !it.hasNext()) {
+                written += write(filmId, batch);
+                batch.forEach(hotFilm.writing::remove);
+                batch.clear();
+            }
+        }
+        return written;
+    }
+
+    // Пачка не записалась целиком (фильм или пользователь удалён после проверки) — лайки пишутся по одному,
+    // а лайки удалённых фильмов и пользователей отбрасываются.
+    private int write(long filmId, List<Long> userIds) {
+        try {
+            filmStorage.addLikes(filmId, userIds);
+            batches.increment();
+            flushedLikes.add(userIds.size());
+            return userIds.size();
+        } catch (RuntimeException e) {
+            log.debug("Пачка лайков фильма {} не записана целиком: {}", filmId, e.getMessage());
+        }
+        int written = 0;
+        for (Long userId : userIds) {
+            try {
+                filmStorage.addLike(filmId, userId);
+                written++;
+            } catch (RuntimeException e) {
+                droppedLikes.increment();
+                log.debug("Лайк filmId={}, userId={} отброшен: {}", filmId, userId, e.getMessage());
+            }
+        }
+        flushedLikes.add(written);
+        return written;
+    }
+
+    private void detectQuietly() {
+        try {
+            detectHotFilms();
+        } catch (RuntimeException e) {
+            log.warn("Поиск горячих фильмов прерван: {}", e.getMessage());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Запись буфера лайков прервана: {}", e.getMessage());
+        }
+    }
+
+    private static class HotFilm {
+        private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+        private final Set<Long> writing = ConcurrentHashMap.newKeySet();
+        private volatile boolean retired;
+
+        private boolean hasBufferedLikes() {
+            return !pending.isEmpty() || !writing.isEmpty();
+        }
+
+        private void retire() {
+            retired = true;
+        }
+    }
+}
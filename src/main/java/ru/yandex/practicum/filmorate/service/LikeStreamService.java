@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.model.LikeCount;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class LikeStreamService {
+    private static final String LIKES_EVENT = "likes";
+    private static final String POPULAR_EVENT = "popular";
+
+    private final FilmStorage filmStorage;
+    private final Duration interval;
+    private final Duration subscriberTimeout;
+    private final Set<Long> changedFilms = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> filmSubscribers = new ConcurrentHashMap<>();
+    private final Set<Subscriber> popularSubscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private ScheduledExecutorService ticker;
+
+    public LikeStreamService(FilmStorage filmStorage,
+                             @Value("${filmorate.like-stream.interval:PT1S}") Duration interval,
+                             @Value("${filmorate.like-stream.subscriber-timeout:PT30M}") Duration subscriberTimeout) {
+        this.filmStorage = filmStorage;
+        this.interval = interval;
+        this.subscriberTimeout = subscriberTimeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::publishQuietly,
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdown();
+        filmSubscribers.values().forEach(subscribers -> subscribers.forEach(Subscriber::complete));
+        popularSubscribers.forEach(Subscriber::complete);
+        deliveryExecutor.shutdown();
+    }
+
+    public SseEmitter subscribeToFilm(long filmId) {
+        if (!filmStorage.exists(filmId)) {
+            throw new FilmNotFoundException("Film with id=" + filmId + " not found");
+        }
+        Subscriber subscriber = new Subscriber(LIKES_EVENT, 0, newEmitter());
+        Set<Subscriber> subscribers = filmSubscribers.computeIfAbsent(filmId, k -> ConcurrentHashMap.newKeySet());
+        subscribers.add(subscriber);
+        subscriber.onClose(() -> filmSubscribers.computeIfPresent(filmId, (k, current) -> {
+            current.remove(subscriber);
+            return current.isEmpty() ? null : current;
+        }));
+        subscriber.offer(new LikeCount(filmId, filmStorage.countLikes(List.of(filmId)).getOrDefault(filmId, 0L)));
+        return subscriber.emitter;
+    }
+
+    public SseEmitter subscribeToPopular(int count) {
+        Subscriber subscriber = new Subscriber(POPULAR_EVENT, count, newEmitter());
+        popularSubscribers.add(subscriber);
+        subscriber.onClose(() -> popularSubscribers.remove(subscriber));
+        subscriber.offer(popular(count));
+        return subscriber.emitter;
+    }
+
+    public void onLikeChanged(long filmId) {
+        if (filmSubscribers.containsKey(filmId) || !popularSubscribers.isEmpty()) {
+            changedFilms.add(filmId);
+        }
+    }
+
+    void publish() {
+        if (changedFilms.isEmpty()) {
+            return;
+        }
+        List<Long> changed = new ArrayList<>(changedFilms);
+        changed.forEach(changedFilms::remove);
+
+        List<Long> watched = changed.stream().filter(filmSubscribers::containsKey).toList();
+        if (!watched.isEmpty()) {
+            Map<Long, Long> counts = filmStorage.countLikes(watched);
+            for (Long filmId : watched) {
+                LikeCount likeCount = new LikeCount(filmId, counts.getOrDefault(filmId, 0L));
+                filmSubscribers.getOrDefault(filmId, Set.of()).forEach(subscriber -> subscriber.offer(likeCount));
+            }
+        }
+
+        Map<Integer, List<LikeCount>> popularByCount = new HashMap<>();
+        for (Subscriber subscriber : popularSubscribers) {
+            subscriber.offer(popularByCount.computeIfAbsent(subscriber.count, this::popular));
+        }
+    }
+
+    private List<LikeCount> popular(int count) {
+        return filmStorage.getPopularFilms(count).stream()
+                .map(film -> new LikeCount(film.getId(), film.getRate()))
+                .toList();
+    }
+
+    private SseEmitter newEmitter() {
+        return new SseEmitter(subscriberTimeout.toMillis());
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось разослать обновления лайков: {}", e.getMessage());
+        }
+    }
+
+    private final class Subscriber {
+        private final String eventName;
+        private final int count;
+        private final SseEmitter emitter;
+        private final AtomicReference<Object> pending = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(String eventName, int count, SseEmitter emitter) {
+            this.eventName = eventName;
+            this.count = count;
+            this.emitter = emitter;
+        }
+
+        void onClose(Runnable callback) {
+            emitter.onCompletion(callback);
+            emitter.onTimeout(callback);
+            emitter.onError(error -> callback.run());
+        }
+
+        void offer(Object payload) {
+            pending.set(payload);
+            if (draining.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+
+        void complete() {
+            emitter.complete();
+        }
+
+        private void drain() {
+            while (true) {
+                Object payload = pending.getAndSet(null);
+                if (payload == null) {
+                    draining.set(false);
+                    if (pending.get() == null || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    emitter.send(SseEmitter.event().name(eventName).data(payload));
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                    draining.set(false);
+                    return;
+                }
+            }
+        }
+    }
+}
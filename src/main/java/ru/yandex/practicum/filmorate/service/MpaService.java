@@ -3,7 +3,8 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.dal.MpaRepository;
+import ru.yandex.practicum.filmorate.dal.MpaStorage;
+import ru.yandex.practicum.filmorate.dal.replica.ReplicaRead;
 import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
@@ -12,14 +13,16 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 public class MpaService {
-    private final MpaRepository mpaRepository;
+    private final MpaStorage mpaStorage;
 
+    @ReplicaRead
     public List<Mpa> getAllMpa() {
-        return mpaRepository.findAll();
+        return mpaStorage.findAll();
     }
 
+    @ReplicaRead
     public Mpa getMpaById(int id) {
-        return mpaRepository.findById(id)
+        return mpaStorage.findById(id)
                 .orElseThrow(() -> new MpaNotFoundException("Рейтинг MPA с id=" + id + " не найден"));
     }
 }
\ No newline at end of file
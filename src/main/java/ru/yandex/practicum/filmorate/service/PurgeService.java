@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
+import ru.yandex.practicum.filmorate.model.PurgeStats;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+// Фоновая очистка мягко удалённых фильмов и пользователей. Связанные строки удаляются пачками
+// по chunk-size отдельными короткими операторами вместо одного каскадного DELETE, который держал бы
+// блокировки на миллионах лайков; сама строка удаляется последней. Очистка идёт в одном потоке:
+// сразу после удаления и раз в interval, чтобы доделать работу, прерванную перезапуском.
+@Slf4j
+@Service
+public class PurgeService {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final LikeStreamService likeStreamService;
+    private final int chunkSize;
+    private final Duration interval;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final AtomicLong filmsPurged = new AtomicLong();
+    private final AtomicLong usersPurged = new AtomicLong();
+    private final AtomicLong rowsDeleted = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private ScheduledExecutorService worker;
+
+    public PurgeService(FilmStorage filmStorage,
+                        UserStorage userStorage,
+                        LikeStreamService likeStreamService,
+                        @Value("${filmorate.purge.chunk-size:1000}") int chunkSize,
+                        @Value("${filmorate.purge.interval:PT1M}") Duration interval) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("filmorate.purge.chunk-size должен быть положительным: " + chunkSize);
+        }
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.likeStreamService = likeStreamService;
+        this.chunkSize = chunkSize;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::purgeQuietly, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+    }
+
+    // Запросы, пришедшие во время очистки, склеиваются в один следующий проход.
+    public void requestPurge() {
+        if (requested.compareAndSet(false, true)) {
+            worker.execute(this::purgeQuietly);
+        }
+    }
+
+    public synchronized void purgeAll() {
+        requested.set(false);
+        for (long filmId : filmStorage.findDeletedIds()) {
+            deleteInChunks(() -> filmStorage.purgeChunk(filmId, chunkSize));
+            filmStorage.hardDelete(filmId);
+            filmsPurged.incrementAndGet();
+            log.info("Фильм {} удалён окончательно", filmId);
+        }
+        for (long userId : userStorage.findDeletedIds()) {
+            Set<Long> changedFilms = new HashSet<>();
+            deleteInChunks(() -> filmStorage.purgeLikesOfUser(userId, chunkSize, changedFilms::add));
+            changedFilms.forEach(likeStreamService::onLikeChanged);
+            deleteInChunks(() -> userStorage.purgeChunk(userId, chunkSize));
+            userStorage.hardDelete(userId);
+            usersPurged.incrementAndGet();
+            log.info("Пользователь {} удалён окончательно, изменилось число лайков у {} фильмов",
+                    userId, changedFilms.size());
+        }
+    }
+
+    public PurgeStats getStats() {
+        return new PurgeStats(filmStorage.findDeletedIds().size(), userStorage.findDeletedIds().size(),
+                filmsPurged.get(), usersPurged.get(), rowsDeleted.get(), chunks.get());
+    }
+
+    private void deleteInChunks(IntSupplier chunk) {
+        int deleted;
+        while ((deleted = chunk.getAsInt()) > 0) {
+            rowsDeleted.addAndGet(deleted);
+            chunks.incrementAndGet();
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            purgeAll();
+        } catch (RuntimeException e) {
+            log.warn("Очистка удалённых записей прервана: {}", e.getMessage());
+        }
+    }
+}
@@ -2,81 +2,168 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.dal.UserRepository;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
+import ru.yandex.practicum.filmorate.dal.replica.ReadYourWrites;
+import ru.yandex.practicum.filmorate.dal.replica.ReplicaRead;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendPath;
+import ru.yandex.practicum.filmorate.model.MutualFriend;
+import ru.yandex.practicum.filmorate.model.SingleFlightStats;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_IDS_PER_REQUEST = 500;
 
-    private final UserRepository userRepository;
+    private final UserStorage userStorage;
+    private final FriendPathFinder friendPathFinder;
+    private final PurgeService purgeService;
+    private final SingleFlight<Long, User> getFlight = new SingleFlight<>("users.get");
+    private final SingleFlight<Long, List<User>> friendsFlight = new SingleFlight<>("users.friends");
+    private final SingleFlight<List<Long>, List<User>> commonFriendsFlight =
+            new SingleFlight<>("users.common-friends");
 
+    @ReadYourWrites(userArg = 0)
     public User create(User user) {
         validateUser(user);
         checkAndSetName(user);
-        return userRepository.create(user);
+        return userStorage.create(user);
     }
 
+    @ReplicaRead(userArg = 0)
     public User get(long id) {
-        if (!userRepository.exists(id)) {
-            throw new UserNotFoundException("User with id=" + id + " not found");
-        }
-        return userRepository.get(id);
+        return getFlight.execute(id, () -> {
+            if (!userStorage.exists(id)) {
+                throw new UserNotFoundException("User with id=" + id + " not found");
+            }
+            return userStorage.get(id);
+        });
     }
 
+    @ReplicaRead
     public List<User> findAll() {
-        return userRepository.findAll();
+        return userStorage.findAll();
+    }
+
+    @ReplicaRead
+    public List<User> findAllById(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > MAX_IDS_PER_REQUEST) {
+            throw new ValidationException("Cannot request more than " + MAX_IDS_PER_REQUEST + " users at once");
+        }
+
+        Map<Long, User> usersById = userStorage.findAllById(uniqueIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<Long> missingIds = uniqueIds.stream()
+                .filter(id -> !usersById.containsKey(id))
+                .toList();
+        if (!missingIds.isEmpty()) {
+            throw new UserNotFoundException("Users with ids=" + missingIds + " not found");
+        }
+        return uniqueIds.stream().map(usersById::get).toList();
     }
 
+    @ReadYourWrites(userArg = 0)
     public User update(User user) {
         validateUser(user);
         checkAndSetName(user);
-        if (!userRepository.exists(user.getId())) {
+        if (!userStorage.exists(user.getId())) {
             throw new UserNotFoundException("User with id=" + user.getId() + " not found");
         }
-        return userRepository.update(user);
+        return userStorage.update(user);
     }
 
-    public void addFriend(long userId, long friendId) {
-        if (!userRepository.exists(userId)) {
-            throw new UserNotFoundException("User with id=" + userId + " not found");
-        }
-        if (!userRepository.exists(friendId)) {
-            throw new UserNotFoundException("User with id=" + friendId + " not found");
+    @ReadYourWrites(userArg = 0)
+    public void delete(long id) {
+        if (!userStorage.markDeleted(id)) {
+            throw new UserNotFoundException("User with id=" + id + " not found");
         }
-        userRepository.addFriend(userId, friendId);
+        purgeService.requestPurge();
+    }
+
+    @ReadYourWrites(userArg = 0)
+    public void addFriend(long userId, long friendId) {
+        userStorage.addFriend(userId, friendId);
     }
 
+    @ReadYourWrites(userArg = 0)
     public void removeFriend(long userId, long friendId) {
-        if (!userRepository.exists(userId)) {
-            throw new UserNotFoundException("User with id=" + userId + " not found");
-        }
-        if (!userRepository.exists(friendId)) {
-            throw new UserNotFoundException("User with id=" + friendId + " not found");
-        }
-        userRepository.removeFriend(userId, friendId);
+        userStorage.removeFriend(userId, friendId);
     }
 
+    @ReplicaRead(userArg = 0)
     public List<User> getFriendsById(long id) {
-        if (!userRepository.exists(id)) {
-            throw new UserNotFoundException("User with id=" + id + " not found");
+        return friendsFlight.execute(id, () -> {
+            if (!userStorage.exists(id)) {
+                throw new UserNotFoundException("User with id=" + id + " not found");
+            }
+            return userStorage.getFriends(id);
+        });
+    }
+
+    // Общие друзья считаются в памяти: друзья всех друзей читаются одним пакетным проходом,
+    // и каждый из них ищется двоичным поиском в отсортированном массиве друзей пользователя.
+    @ReplicaRead(userArg = 0)
+    public List<MutualFriend> getFriendsByMutual(long id) {
+        List<User> friends = getFriendsById(id);
+        long[] friendIds = new long[friends.size()];
+        for (int i = 0; i < friendIds.length; i++) {
+            friendIds[i] = friends.get(i).getId();
         }
-        return userRepository.getFriends(id);
+        Arrays.sort(friendIds);
+
+        int[] mutualCounts = new int[friendIds.length];
+        userStorage.expandFriends(friendIds, friendIds.length, false, (friendId, friendOfFriendId) -> {
+            if (Arrays.binarySearch(friendIds, friendOfFriendId) >= 0) {
+                mutualCounts[Arrays.binarySearch(friendIds, friendId)]++;
+            }
+        });
+
+        return friends.stream()
+                .map(friend -> new MutualFriend(friend, mutualCounts[Arrays.binarySearch(friendIds, friend.getId())]))
+                .sorted(Comparator.comparingInt(MutualFriend::getMutualFriends).reversed()
+                        .thenComparing(friend -> friend.getUser().getId()))
+                .toList();
     }
 
+    @ReplicaRead(userArg = 0)
     public List<User> getCommonFriends(long userId, long friendId) {
-        if (!userRepository.exists(userId)) {
+        return commonFriendsFlight.execute(List.of(userId, friendId), () -> {
+            if (!userStorage.exists(userId)) {
+                throw new UserNotFoundException("User with id=" + userId + " not found");
+            }
+            if (!userStorage.exists(friendId)) {
+                throw new UserNotFoundException("User with id=" + friendId + " not found");
+            }
+            return userStorage.getCommonFriends(userId, friendId);
+        });
+    }
+
+    @ReplicaRead(userArg = 0)
+    public FriendPath getDistance(long userId, long otherId, int maxDepth) {
+        if (!userStorage.exists(userId)) {
             throw new UserNotFoundException("User with id=" + userId + " not found");
         }
-        if (!userRepository.exists(friendId)) {
-            throw new UserNotFoundException("User with id=" + friendId + " not found");
+        if (!userStorage.exists(otherId)) {
+            throw new UserNotFoundException("User with id=" + otherId + " not found");
         }
-        return userRepository.getCommonFriends(userId, friendId);
+        return friendPathFinder.find(userId, otherId, maxDepth);
+    }
+
+    public List<SingleFlightStats> getSingleFlightStats() {
+        return List.of(getFlight.getStats(), friendsFlight.getStats(), commonFriendsFlight.getStats());
     }
 
     private void checkAndSetName(User user) {
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.web;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// Бинарные форматы ответов по заголовку Accept: application/cbor и application/x-protobuf.
+// Конвертеры добавляются в конец списка, чтобы при Accept: */* по-прежнему выбирался JSON;
+// оба строятся из настроенного Spring Boot Jackson2ObjectMapperBuilder, как и JSON (даты — ISO-строки).
+@Configuration(proxyBeanMethods = false)
+public class BinaryMediaTypesConfiguration implements WebMvcConfigurer {
+    static final String PROTO_SCHEMA = "static/schema/filmorate.proto";
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> mapperBuilders;
+
+    public BinaryMediaTypesConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> mapperBuilders) {
+        this.mapperBuilders = mapperBuilders;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(MappingJackson2CborHttpMessageConverter.class::isInstance);
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                mapperBuilders.getObject().factory(new CBORFactory()).build()));
+        converters.add(new SchemaProtobufHttpMessageConverter(
+                mapperBuilders.getObject().factory(new ProtobufFactory()).build(), loadSchema()));
+    }
+
+    static NativeProtobufSchema loadSchema() {
+        try (InputStream in = new ClassPathResource(PROTO_SCHEMA).getInputStream()) {
+            return ProtobufSchemaLoader.std.loadNative(in, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать " + PROTO_SCHEMA, e);
+        }
+    }
+}
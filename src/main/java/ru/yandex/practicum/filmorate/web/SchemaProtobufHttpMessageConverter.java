@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.web;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Ответы в protobuf по опубликованной схеме static/schema/filmorate.proto без генерации классов:
+// Jackson пишет модели по именам полей схемы, поля вне схемы (mpaId, genreIds) пропускаются.
+// Коллекции оборачиваются в сообщения *List, поэтому тип элемента берётся из объявленного типа ответа.
+public class SchemaProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final Map<Class<?>, String> MESSAGE_TYPES = Map.of(
+            Film.class, "Film",
+            User.class, "User",
+            Genre.class, "Genre",
+            Mpa.class, "Mpa",
+            ErrorResponse.class, "ErrorResponse");
+    private static final String LIST_FIELD = "items";
+
+    private final Map<String, ObjectWriter> writers = new HashMap<>();
+
+    public SchemaProtobufHttpMessageConverter(ObjectMapper protobufMapper, NativeProtobufSchema schema) {
+        super(APPLICATION_PROTOBUF);
+        ObjectMapper mapper = protobufMapper.copy()
+                .enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+                .addMixIn(Film.class, FilmMessage.class);
+        for (String messageType : MESSAGE_TYPES.values()) {
+            writers.put(messageType, mapper.writer(schema.forType(messageType)));
+            if (schema.hasMessageType(messageType + "List")) {
+                writers.put(messageType + "List", mapper.writer(schema.forType(messageType + "List")));
+            }
+        }
+    }
+
+    // Без объявленного типа элемент коллекции неизвестен; точная проверка — в canWrite(Type, Class, MediaType).
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MESSAGE_TYPES.containsKey(clazz) || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && writers.containsKey(messageType(type != null ? type : clazz));
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        String messageType = messageType(type != null ? type : value.getClass());
+        Object message = messageType.endsWith("List") ? Map.of(LIST_FIELD, value) : value;
+        writers.get(messageType).writeValue(outputMessage.getBody(), message);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf поддерживается только для ответов", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf поддерживается только для ответов", inputMessage);
+    }
+
+    // Производные поля JSON в схему не входят; IGNORE_UNKNOWN пропускает только скаляры, но не массивы.
+    @JsonIgnoreProperties({"mpaId", "genreIds"})
+    private interface FilmMessage {
+    }
+
+    private String messageType(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        Class<?> raw = resolved.resolve();
+        if (raw == null) {
+            return null;
+        }
+        if (Collection.class.isAssignableFrom(raw)) {
+            String element = MESSAGE_TYPES.get(resolved.asCollection().resolveGeneric(0));
+            return element != null ? element + "List" : null;
+        }
+        return MESSAGE_TYPES.get(raw);
+    }
+}
@@ -13,7 +13,8 @@ CREATE TABLE IF NOT EXISTS users (
   login varchar(10) NOT NULL CHECK (LENGTH(login) >= 5),
   name varchar(255),
   email varchar(255),
-  birthday TIMESTAMP
+  birthday TIMESTAMP,
+  deleted BOOLEAN NOT NULL DEFAULT FALSE
 );
 
 CREATE TABLE IF NOT EXISTS films (
@@ -22,15 +23,40 @@ CREATE TABLE IF NOT EXISTS films (
   description varchar(255),
   release_date TIMESTAMP,
   duration BIGINT,
-  mpa_id INTEGER REFERENCES mpa_rating(rating_id) ON DELETE SET NULL
+  mpa_id INTEGER REFERENCES mpa_rating(rating_id) ON DELETE SET NULL,
+  genre_mask BIGINT NOT NULL DEFAULT 0,
+  deleted BOOLEAN NOT NULL DEFAULT FALSE,
+  version BIGINT NOT NULL DEFAULT 0
 );
 
+ALTER TABLE films ADD COLUMN IF NOT EXISTS genre_mask BIGINT NOT NULL DEFAULT 0;
+
+-- Мягко удалённые строки не читаются; связанные строки и саму строку удаляет фоновая очистка (PurgeService).
+ALTER TABLE films ADD COLUMN IF NOT EXISTS deleted BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Версия фильма растёт при каждом изменении; PUT с устаревшей версией отклоняется.
+ALTER TABLE films ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Жанры фильмов теперь хранятся в films.genre_mask (бит genre_id - 1). Старая таблица film_genre переносится
+-- в маску и удаляется; на новой или уже перенесённой БД пустая таблица создаётся только ради этого UPDATE
+-- и тут же удаляется, поэтому повторный запуск скрипта ничего не меняет.
 CREATE TABLE IF NOT EXISTS film_genre (
-    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    film_id BIGINT REFERENCES films(film_id) ON DELETE CASCADE,
-    genre_id INTEGER REFERENCES genres(genre_id) ON DELETE CASCADE
+    film_id BIGINT,
+    genre_id INTEGER
 );
 
+UPDATE films f
+SET genre_mask = (
+    SELECT BIT_OR_AGG(LSHIFT(CAST(1 AS BIGINT), fg.genre_id - 1))
+    FROM film_genre fg
+    WHERE fg.film_id = f.film_id
+)
+WHERE f.genre_mask = 0
+  AND EXISTS (SELECT 1 FROM film_genre fg WHERE fg.film_id = f.film_id);
+
+DROP TABLE IF EXISTS film_genre;
+
 CREATE TABLE IF NOT EXISTS likes (
     like_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     user_id BIGINT REFERENCES users(user_id) ON DELETE CASCADE,
@@ -44,4 +70,13 @@ CREATE TABLE IF NOT EXISTS friends (
     friend_id BIGINT REFERENCES users(user_id) ON DELETE CASCADE,
 
     UNIQUE(user_id, friend_id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS schema_version (
+    id INTEGER PRIMARY KEY,
+    checksum VARCHAR(64) NOT NULL
+);
+
+-- БД прошлых версий хранили номер, который приходилось поднимать вручную
+ALTER TABLE schema_version ADD COLUMN IF NOT EXISTS checksum VARCHAR(64);
+ALTER TABLE schema_version DROP COLUMN IF EXISTS version;
\ No newline at end of file
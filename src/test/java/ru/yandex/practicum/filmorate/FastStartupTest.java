@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate;
+
+import org.h2.Driver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(OutputCaptureExtension.class)
+class FastStartupTest {
+    private static final long STARTUP_BUDGET_MS = Long.getLong("filmorate.startup.budget-ms", 15_000);
+    private static final String DATABASE_URL = "jdbc:h2:mem:fast-start;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void shouldServeFirstRequestWithinBudgetAndSkipUpToDateReferenceData(CapturedOutput output) throws Exception {
+        try (ConfigurableApplicationContext context = start()) {
+            assertThat(get(context, "/genres").body()).contains("Комедия");
+        }
+        assertThat(output).contains("Справочные данные обновлены");
+
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = start()) {
+            HttpResponse<String> response = get(context, "/mpa");
+            long timeToFirstRequest = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).contains("PG-13");
+            assertThat(timeToFirstRequest).isLessThan(STARTUP_BUDGET_MS);
+        }
+        assertThat(output).contains("Справочные данные актуальны", "Первый запрос GET /mpa обработан");
+    }
+
+    // Изменённые schema.sql/data.sql дают другую контрольную сумму, номер поднимать вручную не нужно.
+    @Test
+    void shouldRerunScriptsWhenTheyChanged(CapturedOutput output) throws Exception {
+        String databaseUrl = "jdbc:h2:mem:fast-changed;DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext context = start(databaseUrl)) {
+            assertThat(get(context, "/genres").statusCode()).isEqualTo(200);
+        }
+        new JdbcTemplate(new SimpleDriverDataSource(new Driver(), databaseUrl, "sa", ""))
+                .update("UPDATE schema_version SET checksum = 'previous'");
+
+        try (ConfigurableApplicationContext context = start(databaseUrl)) {
+            assertThat(get(context, "/genres").body()).contains("Комедия");
+        }
+        assertThat(output.getOut().split("Справочные данные обновлены", -1)).hasSize(3);
+    }
+
+    // БД, подготовленная прошлой версией приложения: без новых столбцов и с номером версии вместо контрольной суммы.
+    @Test
+    void shouldMigrateDatabaseStampedWithPreviousVersion(CapturedOutput output) throws Exception {
+        String databaseUrl = "jdbc:h2:mem:fast-upgrade;DB_CLOSE_DELAY=-1";
+        DataSource dataSource = new SimpleDriverDataSource(new Driver(), databaseUrl, "sa", "");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("ALTER TABLE films DROP COLUMN version");
+        jdbcTemplate.execute("ALTER TABLE schema_version DROP COLUMN checksum");
+        jdbcTemplate.execute("ALTER TABLE schema_version ADD COLUMN version INTEGER NOT NULL");
+        jdbcTemplate.update("MERGE INTO schema_version KEY(id) VALUES (1, 4)");
+
+        try (ConfigurableApplicationContext context = start(databaseUrl)) {
+            HttpResponse<String> response = get(context, "/films/1");
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).contains("Фильм А");
+        }
+        assertThat(output).contains("Справочные данные обновлены");
+    }
+
+    private ConfigurableApplicationContext start() {
+        return start(DATABASE_URL);
+    }
+
+    private ConfigurableApplicationContext start(String databaseUrl) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .profiles("fast")
+                .properties("server.port=0")
+                // Аргументом командной строки: значения по умолчанию перекрываются тестовым application.properties.
+                .run("--spring.datasource.url=" + databaseUrl);
+    }
+
+    private HttpResponse<String> get(ConfigurableApplicationContext context, String path) throws Exception {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// Общие заготовки сущностей для тестов; рейтинг 2 — PG, жанр 2 — Драма из data.sql
+public final class TestFixtures {
+    private TestFixtures() {
+    }
+
+    public static Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100L);
+        film.setMpa(new Mpa(2, null));
+        film.setGenres(Set.of(new Genre(2, null)));
+        return film;
+    }
+
+    public static User newUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setName(login);
+        user.setEmail(login + "@test.com");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import ru.yandex.practicum.filmorate.dal.inmemory.InMemoryGenreStorage;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.web.SchemaProtobufHttpMessageConverter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость кодирования ответа GET /films в JSON, CBOR и protobuf теми же конвертерами, что и в приложении.
+// Результат операции — размер тела в байтах, он печатается при подготовке, чтобы сравнить и объём.
+// Запуск: java -cp ... org.openjdk.jmh.Main FilmEncodingBenchmark -prof gc (см. README, «Бенчмарки»).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmEncodingBenchmark {
+    private static final Type FILM_LIST = new ParameterizedTypeReference<List<Film>>() {
+    }.getType();
+    private static final String[] MPA_NAMES = {"G", "PG", "PG-13", "R", "NC-17"};
+
+    @Param({"1000"})
+    private int films;
+
+    private List<Film> payload;
+    private GenericHttpMessageConverter<Object> json;
+    private GenericHttpMessageConverter<Object> cbor;
+    private GenericHttpMessageConverter<Object> protobuf;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        json = new MappingJackson2HttpMessageConverter(builder.build());
+        cbor = new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+        protobuf = new SchemaProtobufHttpMessageConverter(builder.factory(new ProtobufFactory()).build(),
+                loadSchema());
+
+        List<Genre> genres = new InMemoryGenreStorage().findAll();
+        Random random = new Random(42);
+        payload = new ArrayList<>(films);
+        for (long id = 1; id <= films; id++) {
+            Film film = new Film();
+            film.setId(id);
+            film.setName("Фильм " + id);
+            film.setDescription("Описание фильма " + id);
+            film.setReleaseDate(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(25_000)));
+            film.setDuration(60 + random.nextInt(120));
+            int mpaId = random.nextInt(MPA_NAMES.length) + 1;
+            film.setMpa(new Mpa(mpaId, MPA_NAMES[mpaId - 1]));
+            Set<Genre> filmGenres = new LinkedHashSet<>();
+            for (Genre genre : genres) {
+                if (random.nextInt(3) == 0) {
+                    filmGenres.add(genre);
+                }
+            }
+            film.setGenres(filmGenres);
+            payload.add(film);
+        }
+        System.out.printf("%nРазмер ответа на %d фильмов: json=%d cbor=%d protobuf=%d байт%n",
+                films, encode(json, MediaType.APPLICATION_JSON), encode(cbor, MediaType.APPLICATION_CBOR),
+                encode(protobuf, SchemaProtobufHttpMessageConverter.APPLICATION_PROTOBUF));
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        return encode(json, MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public int cbor() throws IOException {
+        return encode(cbor, MediaType.APPLICATION_CBOR);
+    }
+
+    @Benchmark
+    public int protobuf() throws IOException {
+        return encode(protobuf, SchemaProtobufHttpMessageConverter.APPLICATION_PROTOBUF);
+    }
+
+    private int encode(GenericHttpMessageConverter<Object> converter, MediaType mediaType) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(payload, FILM_LIST, mediaType, output);
+        return output.getBodyAsBytes().length;
+    }
+
+    private static NativeProtobufSchema loadSchema() throws IOException {
+        try (InputStream in = new ClassPathResource("static/schema/filmorate.proto").getInputStream()) {
+            return ProtobufSchemaLoader.std.loadNative(in, false);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FilmEncodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
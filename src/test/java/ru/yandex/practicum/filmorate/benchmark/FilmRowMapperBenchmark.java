@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.dal.GenreMask;
+import ru.yandex.practicum.filmorate.dal.inmemory.InMemoryGenreStorage;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Аллокации на строку при отображении списка фильмов: общие Mpa/Genre/наборы жанров против новых объектов на строку.
+// Запуск: mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+//         java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+//              ru.yandex.practicum.filmorate.benchmark.FilmRowMapperBenchmark
+// Сравнивать gc.alloc.rate.norm (байт на операцию).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmRowMapperBenchmark {
+    private static final String[] MPA_NAMES = {"G", "PG", "PG-13", "R", "NC-17"};
+
+    @Param({"100000"})
+    private int rows;
+
+    private SimpleResultSet resultSet;
+    private FilmRowMapper sharedMapper;
+    private Map<Integer, String> genreNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryGenreStorage genreStorage = new InMemoryGenreStorage();
+        sharedMapper = new FilmRowMapper(genreStorage, new MpaRowMapper());
+        genreNames = genreStorage.findAll().stream()
+                .collect(Collectors.toMap(Genre::getId, Genre::getName));
+
+        resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("film_id", Types.BIGINT, 19, 0);
+        resultSet.addColumn("name", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("description", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("release_date", Types.TIMESTAMP, 26, 0);
+        resultSet.addColumn("duration", Types.BIGINT, 19, 0);
+        resultSet.addColumn("mpa_id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("mpa_name", Types.VARCHAR, 10, 0);
+        resultSet.addColumn("genre_mask", Types.BIGINT, 19, 0);
+        resultSet.addColumn("version", Types.BIGINT, 19, 0);
+        Random random = new Random(42);
+        Timestamp releaseDate = Timestamp.valueOf(LocalDateTime.of(2000, 1, 1, 0, 0));
+        for (long id = 1; id <= rows; id++) {
+            int mpaId = random.nextInt(MPA_NAMES.length) + 1;
+            long genreMask = random.nextInt(1 << 6);
+            resultSet.addRow(id, "Фильм " + id, "Описание", releaseDate, 100L, mpaId, MPA_NAMES[mpaId - 1],
+                    genreMask, 0L);
+        }
+    }
+
+    @Benchmark
+    public void sharedInstances(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        int rowNum = 0;
+        while (resultSet.next()) {
+            blackhole.consume(sharedMapper.mapRow(resultSet, rowNum++));
+        }
+    }
+
+    @Benchmark
+    public void instancesPerRow(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(mapWithoutSharing());
+        }
+    }
+
+    // Прежнее отображение: новый Mpa, новый Genre на каждый жанр и новый LinkedHashSet на каждую строку.
+    private Film mapWithoutSharing() throws SQLException {
+        Film film = new Film();
+        film.setId(resultSet.getLong("film_id"));
+        film.setName(resultSet.getString("name"));
+        film.setDescription(resultSet.getString("description"));
+        film.setDuration(resultSet.getLong("duration"));
+        film.setReleaseDate(resultSet.getTimestamp("release_date").toLocalDateTime().toLocalDate());
+        film.setMpa(new Mpa(resultSet.getInt("mpa_id"), resultSet.getString("mpa_name")));
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (int genreId : GenreMask.decode(resultSet.getLong("genre_mask"))) {
+            genres.add(new Genre(genreId, genreNames.get(genreId)));
+        }
+        film.setGenres(genres);
+        return film;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FilmRowMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HydrationExecutorTest {
+    private final HydrationExecutor executor = new HydrationExecutor(2, 100);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldRunTasksConcurrentlyUpToLimit() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<Integer> done = new ArrayList<>();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            int id = i;
+            tasks.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                bothStarted.countDown();
+                await(bothStarted);
+                running.decrementAndGet();
+                synchronized (done) {
+                    done.add(id);
+                }
+            });
+        }
+
+        executor.runAll(tasks);
+
+        assertThat(done).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5);
+        assertThat(maxRunning).hasValue(2);
+    }
+
+    @Test
+    void shouldRunOnVirtualThreads() {
+        Set<Boolean> virtual = ConcurrentHashMap.newKeySet();
+        executor.runAll(List.of(
+                () -> virtual.add(Thread.currentThread().isVirtual()),
+                () -> virtual.add(Thread.currentThread().isVirtual())));
+
+        assertThat(virtual).containsExactly(true);
+    }
+
+    @Test
+    void shouldPropagateTaskFailure() {
+        assertThatThrownBy(() -> executor.runAll(List.of(() -> {
+        }, () -> {
+            throw new IllegalArgumentException("broken");
+        }))).isInstanceOf(IllegalArgumentException.class).hasMessage("broken");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EdgeEventLogTest {
+    private static final int SEGMENT_SIZE = 24 * 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverLikesAcrossSegments() {
+        EdgeEventLog log = open();
+        LongSetIndex likes = likesIndex(log);
+        likes.add(1, 10);
+        likes.add(1, 11);
+        likes.add(2, 10);
+        likes.add(3, 12);
+        likes.add(3, 13);
+        likes.remove(1, 10);
+        log.close();
+
+        EdgeEventLog reopened = open();
+        LongSetIndex recovered = new LongSetIndex();
+        reopened.loadLikes(recovered);
+
+        assertThat(recovered.get(1)).containsExactly(11);
+        assertThat(recovered.get(2)).containsExactly(10);
+        assertThat(recovered.get(3)).containsExactly(12, 13);
+        assertThat(reopened.maxFilmId()).isEqualTo(3);
+        assertThat(reopened.maxUserId()).isEqualTo(13);
+        reopened.close();
+    }
+
+    @Test
+    void shouldCompactSealedSegmentsIntoSnapshot() throws IOException {
+        EdgeEventLog log = open();
+        LongSetIndex likes = likesIndex(log);
+        LongSetIndex friends = new LongSetIndex((userId, friendId, added) -> log.append(
+                added ? EdgeEventLog.FRIEND_ADDED : EdgeEventLog.FRIEND_REMOVED, userId, friendId));
+        for (long userId = 1; userId <= 9; userId++) {
+            likes.add(100, userId);
+        }
+        friends.add(1, 2);
+        log.compact();
+        likes.add(101, 1);
+        log.close();
+
+        assertThat(segmentCount()).isEqualTo(1);
+        assertThat(directory.resolve("edges.snapshot")).exists();
+
+        EdgeEventLog reopened = open();
+        LongSetIndex recoveredLikes = new LongSetIndex();
+        LongSetIndex recoveredFriends = new LongSetIndex();
+        reopened.loadLikes(recoveredLikes);
+        reopened.loadFriends(recoveredFriends);
+
+        assertThat(recoveredLikes.size(100)).isEqualTo(9);
+        assertThat(recoveredLikes.get(101)).containsExactly(1);
+        assertThat(recoveredFriends.get(1)).containsExactly(2);
+        reopened.close();
+    }
+
+    @Test
+    void shouldStopReplayAtTornRecord() throws IOException {
+        EdgeEventLog log = open();
+        LongSetIndex likes = likesIndex(log);
+        likes.add(1, 10);
+        log.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, EdgeEventLog.LIKE_ADDED), 24);
+        }
+
+        EdgeEventLog reopened = open();
+        LongSetIndex recovered = likesIndex(reopened);
+        reopened.loadLikes(recovered);
+        assertThat(recovered.get(1)).containsExactly(10);
+
+        recovered.add(2, 20);
+        reopened.close();
+
+        EdgeEventLog again = open();
+        LongSetIndex result = new LongSetIndex();
+        again.loadLikes(result);
+        assertThat(result.get(2)).containsExactly(20);
+        again.close();
+    }
+
+    @Test
+    void shouldNotReplayStaleRecordsAfterTornRecord() throws IOException {
+        EdgeEventLog log = open();
+        LongSetIndex likes = likesIndex(log);
+        likes.add(1, 10);
+        log.close();
+
+        Path segment = firstSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, EdgeEventLog.LIKE_ADDED), 24);
+            channel.write(record(EdgeEventLog.LIKE_ADDED, 2, 20), 48);
+        }
+
+        open().close();
+
+        EdgeEventLog reopened = open();
+        LongSetIndex recovered = new LongSetIndex();
+        reopened.loadLikes(recovered);
+        assertThat(recovered.get(1)).containsExactly(10);
+        assertThat(recovered.get(2)).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void shouldDropSegmentsAfterTornRecordInEarlierSegment() throws IOException {
+        EdgeEventLog log = open();
+        LongSetIndex likes = likesIndex(log);
+        for (long userId = 1; userId <= 6; userId++) {
+            likes.add(1, userId);
+        }
+        log.close();
+        assertThat(segmentCount()).isEqualTo(2);
+
+        try (FileChannel channel = FileChannel.open(firstSegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 7), 24 * 2 + 20);
+        }
+
+        EdgeEventLog reopened = open();
+        LongSetIndex recovered = new LongSetIndex();
+        reopened.loadLikes(recovered);
+        assertThat(recovered.get(1)).containsExactly(1, 2);
+        assertThat(segmentCount()).isEqualTo(1);
+        reopened.close();
+    }
+
+    private EdgeEventLog open() {
+        return new EdgeEventLog(directory, SEGMENT_SIZE, Duration.ofSeconds(1), Duration.ofMinutes(10));
+    }
+
+    private LongSetIndex likesIndex(EdgeEventLog log) {
+        return new LongSetIndex((filmId, userId, added) -> log.append(
+                added ? EdgeEventLog.LIKE_ADDED : EdgeEventLog.LIKE_REMOVED, filmId, userId));
+    }
+
+    private static ByteBuffer record(int op, long first, long second) {
+        ByteBuffer record = ByteBuffer.allocate(24).putInt(op).putLong(first).putLong(second);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, 20);
+        return record.putInt((int) crc.getValue()).flip();
+    }
+
+    private Path firstSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".log")).sorted().findFirst().orElseThrow();
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".log")).count();
+        }
+    }
+}
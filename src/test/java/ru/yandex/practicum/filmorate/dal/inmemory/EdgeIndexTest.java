@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Sql({"/schema.sql", "/data.sql"})
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class EdgeIndexTest {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldBuildIndexFromDatabase() {
+        EdgeIndex index = newIndex();
+        index.warmStart();
+
+        assertThat(index.likers(1)).containsExactly(1, 2);
+        assertThat(index.likers(2)).containsExactly(1);
+    }
+
+    @Test
+    void shouldReplayChangesMadeAfterSnapshot() throws IOException {
+        EdgeIndex index = newIndex();
+        index.warmStart();
+        index.writeSnapshot();
+
+        jdbcTemplate.update("INSERT INTO likes (user_id, film_id) VALUES (2, 2)");
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (1, 2)");
+
+        EdgeIndex restarted = newIndex();
+        restarted.warmStart();
+        assertThat(restarted.likers(2)).containsExactly(1, 2);
+        assertThat(restarted.friends(1)).containsExactly(2);
+
+        jdbcTemplate.update("DELETE FROM likes WHERE user_id = 1 AND film_id = 1");
+
+        EdgeIndex afterDelete = newIndex();
+        afterDelete.warmStart();
+        assertThat(afterDelete.likers(1)).containsExactly(2);
+    }
+
+    private EdgeIndex newIndex() {
+        return new EdgeIndex(jdbcTemplate, directory.resolve("edge-index.snapshot"), Duration.ofMinutes(5));
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.dal.inmemory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestFixtures.newFilm;
+import static ru.yandex.practicum.filmorate.TestFixtures.newUser;
+
+class EntityJournalTest {
+    private static final int SEGMENT_SIZE = 24 * 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverFilmsUsersAndTheirLikes() {
+        Engine engine = new Engine();
+        User user = engine.users.create(newUser("first"));
+        User deleted = engine.users.create(newUser("second"));
+        Film film = engine.films.create(newFilm("Film"));
+        film.setName("Renamed");
+        engine.films.update(film);
+        engine.films.addLike(film.getId(), user.getId());
+        engine.users.markDeleted(deleted.getId());
+        engine.close();
+
+        Engine restarted = new Engine();
+        assertThat(restarted.films.get(film.getId()).getName()).isEqualTo("Renamed");
+        assertThat(restarted.films.get(film.getId()).getGenres()).extracting(Genre::getName).containsExactly("Драма");
+        assertThat(restarted.films.get(film.getId()).getUserIds()).containsExactly(user.getId());
+        assertThat(restarted.users.get(user.getId()).getLogin()).isEqualTo("first");
+        assertThat(restarted.users.exists(deleted.getId())).isFalse();
+        assertThat(restarted.users.findDeletedIds()).containsExactly(deleted.getId());
+        assertThat(restarted.users.create(newUser("third")).getId()).isEqualTo(deleted.getId() + 1);
+        restarted.close();
+    }
+
+    @Test
+    void shouldDropLikesOfUnknownFilmsAndTornJournalTail() throws IOException {
+        Engine engine = new Engine();
+        User user = engine.users.create(newUser("first"));
+        Film film = engine.films.create(newFilm("Film"));
+        engine.films.addLike(film.getId(), user.getId());
+        engine.edges.append(EdgeEventLog.LIKE_ADDED, 99, user.getId());
+        engine.close();
+        Files.writeString(directory.resolve("entities.log"), "{\"op\":\"FILM\",\"id\":100,\"fi",
+                StandardOpenOption.APPEND);
+
+        Engine restarted = new Engine();
+        assertThat(restarted.films.countLikes(Set.of(99L, film.getId())))
+                .containsEntry(99L, 0L)
+                .containsEntry(film.getId(), 1L);
+        assertThat(restarted.films.exists(100L)).isFalse();
+        assertThat(restarted.films.create(newFilm("Film")).getId()).isEqualTo(100L);
+        restarted.close();
+    }
+
+    @Test
+    void shouldJournalOnlyRealUpdatesInTheOrderTheyWereApplied() throws Exception {
+        Engine engine = new Engine();
+        User user = engine.users.create(newUser("first"));
+        Film film = engine.films.create(newFilm("Film"));
+        long lines = Files.readAllLines(directory.resolve("entities.log")).size();
+        engine.users.update(user);
+        engine.films.update(engine.films.get(film.getId()));
+        assertThat(Files.readAllLines(directory.resolve("entities.log"))).hasSize((int) lines);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> updates = IntStream.range(0, 200)
+                .mapToObj(i -> executor.submit(() -> {
+                    Film update = engine.films.get(film.getId());
+                    update.setVersion(null);
+                    update.setName("Name " + i);
+                    engine.films.update(update);
+                }))
+                .collect(Collectors.toList());
+        for (Future<?> update : updates) {
+            update.get();
+        }
+        executor.shutdown();
+        Film latest = engine.films.get(film.getId());
+        engine.close();
+
+        Engine restarted = new Engine();
+        assertThat(restarted.films.get(film.getId()))
+                .extracting(Film::getName, Film::getVersion)
+                .containsExactly(latest.getName(), latest.getVersion());
+        restarted.close();
+    }
+
+    @Test
+    void shouldCompactJournalWhileRunning() throws IOException {
+        Engine engine = new Engine();
+        User user = engine.users.create(newUser("first"));
+        assertThat(engine.journal.compactIfNeeded()).isFalse();
+        for (int i = 0; i < 10_000; i++) {
+            user.setName("Name " + i);
+            engine.users.update(user);
+        }
+
+        assertThat(engine.journal.compactIfNeeded()).isTrue();
+        assertThat(Files.readAllLines(directory.resolve("entities.log"))).hasSize(3);
+        user.setName("After compaction");
+        engine.users.update(user);
+        engine.close();
+
+        Engine restarted = new Engine();
+        assertThat(restarted.users.get(user.getId()).getName()).isEqualTo("After compaction");
+        restarted.close();
+    }
+
+    private class Engine {
+        private final EdgeEventLog edges =
+                new EdgeEventLog(directory, SEGMENT_SIZE, Duration.ofSeconds(1), Duration.ofMinutes(10));
+        private final EntityJournal journal = new EntityJournal(directory, Duration.ofSeconds(1));
+        private final InMemoryUserStorage users = new InMemoryUserStorage(Optional.of(edges), Optional.of(journal));
+        private final InMemoryFilmStorage films = new InMemoryFilmStorage(users, new InMemoryGenreStorage(),
+                new InMemoryMpaStorage(), Optional.of(edges), Optional.of(journal));
+
+        void close() {
+            journal.close();
+            edges.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.dal.replica;
+
+import lombok.RequiredArgsConstructor;
+import org.h2.Driver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ReplicaStats;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.yandex.practicum.filmorate.TestFixtures.newFilm;
+import static ru.yandex.practicum.filmorate.TestFixtures.newUser;
+
+// Фоновый опрос выключен (poll-interval=0): реплика догоняет основную базу только по replicateOnce().
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replication-primary;DB_CLOSE_DELAY=-1",
+        "filmorate.replica.enabled=true",
+        "filmorate.replica.urls=" + ReplicationTest.REPLICA_URL,
+        "filmorate.replica.poll-interval=0",
+        "filmorate.replica.max-lag=1m",
+        "filmorate.replica.read-your-writes-window=1m"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReplicationTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replication-replica;DB_CLOSE_DELAY=-1";
+
+    private final Replicator replicator;
+    private final ReplicaRouter replicaRouter;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate replica =
+            new JdbcTemplate(new SimpleDriverDataSource(new Driver(), REPLICA_URL, "sa", ""));
+
+    @Test
+    void shouldCopyPrimaryOnStart() {
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM genres", Integer.class)).isEqualTo(6);
+        assertThat(replica.queryForObject("SELECT name FROM mpa_rating WHERE rating_id = 3", String.class))
+                .isEqualTo("PG-13");
+    }
+
+    @Test
+    void shouldServeAnonymousReadsFromReplicaUntilReplicated() {
+        Film film = filmService.create(newFilm("Replicated"));
+
+        assertThatThrownBy(() -> filmService.get(film.getId())).isInstanceOf(FilmNotFoundException.class);
+
+        replicator.replicateOnce();
+
+        assertThat(filmService.get(film.getId()).getName()).isEqualTo("Replicated");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM replication_log", Integer.class)).isZero();
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimary() {
+        User user = userService.create(newUser("writer"));
+        long otherId = userService.create(newUser("other")).getId();
+        userService.addFriend(user.getId(), 1L);
+
+        assertThat(userService.get(user.getId()).getLogin()).isEqualTo("writer");
+        assertThat(userService.getFriendsById(user.getId())).extracting(User::getId).containsExactly(1L);
+        assertThat(userService.findAll()).extracting(User::getId).doesNotContain(user.getId());
+
+        replicator.replicateOnce();
+
+        assertThat(userService.findAll()).extracting(User::getId).contains(user.getId(), otherId);
+        assertThat(replicaRouter.chooseReplica(user.getId())).isZero();
+    }
+
+    @Test
+    void shouldApplyDeletesToReplica() {
+        userService.addFriend(1L, 2L);
+        replicator.replicateOnce();
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM friends WHERE user_id = 1 AND friend_id = 2",
+                Integer.class)).isEqualTo(1);
+
+        userService.removeFriend(1L, 2L);
+        replicator.replicateOnce();
+
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM friends WHERE user_id = 1 AND friend_id = 2",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void shouldReportReplicaLag() {
+        replicator.replicateOnce();
+
+        List<ReplicaStats> stats = replicaRouter.getStats();
+
+        assertThat(stats).extracting(ReplicaStats::getName).containsExactly("primary", REPLICA_URL);
+        assertThat(stats.get(1).getLagMillis()).isNotNull().isLessThan(60_000L);
+    }
+
+    // База, оставшаяся от запуска с репликами, при следующем запуске без них.
+    @Test
+    void shouldDropTriggersAndLogWhenReplicasAreDisabled() {
+        JdbcTemplate leftover = new JdbcTemplate(new SimpleDriverDataSource(new Driver(),
+                "jdbc:h2:mem:replication-leftover;DB_CLOSE_DELAY=-1", "sa", ""));
+        leftover.execute("CREATE TABLE likes (like_id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY, film_id BIGINT)");
+        leftover.execute("CREATE TABLE replication_log (seq BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY, "
+                + "table_name VARCHAR(64), row_id BIGINT)");
+        leftover.execute("CREATE TRIGGER likes_replication AFTER INSERT ON likes FOR EACH ROW CALL \""
+                + ChangeCaptureTrigger.class.getName() + "\"");
+
+        new ReplicationCleaner(leftover).dropReplicationArtifacts();
+
+        leftover.update("INSERT INTO likes (film_id) VALUES (1)");
+        assertThat(leftover.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TRIGGERS", Integer.class)).isZero();
+        assertThat(leftover.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE TABLE_NAME = 'REPLICATION_LOG'", Integer.class)).isZero();
+    }
+}
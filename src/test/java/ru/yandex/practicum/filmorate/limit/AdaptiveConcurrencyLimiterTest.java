@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = Duration.ofMillis(5).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void shouldRejectAboveLimit() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(2);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getRejected()).isEqualTo(1);
+
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldShrinkLimitOnSlowRequestsDownToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(10);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldGrowLimitOnlyWhenSaturated() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(4);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        for (int i = 0; i < 50; i++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int j = 0; j < acquired; j++) {
+                limiter.release(FAST);
+            }
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(4).isLessThanOrEqualTo(16);
+    }
+
+    private AdaptiveConcurrencyLimiter newLimiter(int initial) {
+        return new AdaptiveConcurrencyLimiter("test", initial, 1, 16, Duration.ofMillis(100), 0.5);
+    }
+}
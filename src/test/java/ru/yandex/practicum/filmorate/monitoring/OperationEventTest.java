@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OperationEventTest {
+
+    @Autowired
+    private FilmService filmService;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecordServiceAndRepositoryOperations() throws Exception {
+        Path file = directory.resolve("operations.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(OperationEvent.NAME);
+            recording.start();
+            filmService.get(1);
+            filmService.findAllById(List.of(1L, 2L));
+            assertThatThrownBy(() -> filmService.get(999)).isInstanceOf(FilmNotFoundException.class);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, OperationReport.OperationSummary> summaries = OperationReport.summarize(file).stream()
+                .collect(Collectors.toMap(OperationReport.OperationSummary::getOperation, Function.identity()));
+
+        assertThat(summaries.get("FilmService.get").getCount()).isEqualTo(2);
+        assertThat(summaries.get("FilmService.get").getFailures()).isEqualTo(1);
+        assertThat(summaries.get("FilmService.get").getLayer()).isEqualTo("service");
+        assertThat(summaries.get("FilmRepository.findAllById").getRows()).isEqualTo(2);
+        assertThat(summaries.get("FilmRepository.findAllById").getLayer()).isEqualTo("repository");
+        assertThat(summaries.get("FilmRepository.exists").getCount()).isEqualTo(2);
+    }
+}
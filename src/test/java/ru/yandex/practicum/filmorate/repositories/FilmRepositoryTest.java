@@ -2,26 +2,45 @@ package ru.yandex.practicum.filmorate.repositories;//package ru.yandex.practicum
 
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.GenreMask;
 import ru.yandex.practicum.filmorate.dal.GenreRepository;
+import ru.yandex.practicum.filmorate.dal.HydrationExecutor;
 import ru.yandex.practicum.filmorate.dal.MpaRepository;
+import ru.yandex.practicum.filmorate.dal.inmemory.EdgeIndex;
 import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
 import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
 import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
-@Import({FilmRepository.class, FilmRowMapper.class, GenreRowMapper.class, MpaRepository.class, GenreRepository.class, MpaRowMapper.class})
+@Import({FilmRepository.class, FilmRowMapper.class, GenreRowMapper.class, MpaRepository.class, GenreRepository.class,
+        MpaRowMapper.class, HydrationExecutor.class})
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Sql({"/schema.sql", "/data.sql"})
 @Transactional
@@ -29,11 +48,31 @@ import static org.assertj.core.api.Assertions.assertThat;
 class FilmRepositoryTest {
 
     private final FilmRepository filmRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final FilmRowMapper filmRowMapper;
+    private final MpaRowMapper mpaRowMapper;
+    private final GenreRowMapper genreRowMapper;
+    private final HydrationExecutor hydrationExecutor;
+
+    @TempDir
+    Path directory;
 
     @Test
     void shouldFindAllFilms() {
         List<Film> films = filmRepository.findAll();
         assertThat(films).hasSize(2);
+        assertThat(films.get(0).getGenres()).extracting(Genre::getId).containsExactly(1);
+        assertThat(films.get(1).getGenres()).extracting(Genre::getId).containsExactly(2, 4);
+    }
+
+    @Test
+    void shouldFindFilmsByIds() {
+        List<Film> films = filmRepository.findAllById(List.of(2L, 999L));
+
+        assertThat(films).hasSize(1);
+        assertThat(films.getFirst().getId()).isEqualTo(2L);
+        assertThat(films.getFirst().getGenres()).extracting(Genre::getId).containsExactly(2, 4);
+        assertThat(films.getFirst().getRate()).isEqualTo(1L);
     }
 
     @Test
@@ -47,6 +86,50 @@ class FilmRepositoryTest {
         assertThat(popular.get(1).getRate()).isEqualTo(1L);
     }
 
+    @Test
+    void shouldStreamAllLikes() {
+        List<String> edges = new ArrayList<>();
+
+        filmRepository.forEachLike((filmId, userId) -> edges.add(filmId + "<-" + userId));
+
+        assertThat(edges).containsExactlyInAnyOrder("1<-1", "1<-2", "2<-1");
+    }
+
+    @Test
+    void shouldHideDeletedFilmAndPurgeItInChunks() {
+        assertThat(filmRepository.markDeleted(1L)).isTrue();
+        assertThat(filmRepository.markDeleted(1L)).isFalse();
+
+        assertThat(filmRepository.exists(1L)).isFalse();
+        assertThat(filmRepository.findAll()).extracting(Film::getId).containsExactly(2L);
+        assertThat(filmRepository.getPopularFilms(10)).extracting(Film::getId).containsExactly(2L);
+        assertThat(filmRepository.findDeletedIds()).containsExactly(1L);
+        List<String> likes = new ArrayList<>();
+        filmRepository.forEachLike((filmId, userId) -> likes.add(filmId + "<-" + userId));
+        assertThat(likes).containsExactly("2<-1");
+
+        assertThat(filmRepository.purgeChunk(1L, 1)).isEqualTo(1);
+        assertThat(filmRepository.purgeChunk(1L, 1)).isEqualTo(1);
+        assertThat(filmRepository.purgeChunk(1L, 1)).isZero();
+        filmRepository.hardDelete(1L);
+
+        assertThat(filmRepository.findDeletedIds()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = 1", Integer.class)).isZero();
+        assertThat(filmRepository.get(2L).getRate()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldPurgeLikesOfDeletedUser() {
+        List<Long> changedFilms = new ArrayList<>();
+
+        assertThat(filmRepository.purgeLikesOfUser(1L, 1, changedFilms::add)).isEqualTo(1);
+        assertThat(filmRepository.purgeLikesOfUser(1L, 10, changedFilms::add)).isEqualTo(1);
+        assertThat(filmRepository.purgeLikesOfUser(1L, 10, changedFilms::add)).isZero();
+
+        assertThat(changedFilms).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(filmRepository.get(1L).getUserIds()).containsExactly(2L);
+    }
+
     @Test
     void shouldAddAndRemoveLike() {
         Film film = filmRepository.get(2L);
@@ -60,4 +143,142 @@ class FilmRepositoryTest {
         film = filmRepository.get(2L);
         assertThat(film.getRate()).isEqualTo(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldAddLikeIdempotently() {
+        filmRepository.addLike(1L, 1L);
+
+        assertThat(filmRepository.get(1L).getRate()).isEqualTo(2L);
+        assertThatThrownBy(() -> filmRepository.addLike(999L, 1L))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void shouldNotIndexLikesOfRolledBackBatch() {
+        EdgeIndex edgeIndex = new EdgeIndex(jdbcTemplate, directory.resolve("edge-index.snapshot"), Duration.ofMinutes(5));
+        FilmRepository indexedRepository = new FilmRepository(jdbcTemplate, filmRowMapper, mpaRowMapper, genreRowMapper,
+                hydrationExecutor, Optional.of(edgeIndex), Optional.empty());
+
+        indexedRepository.addLikes(2L, List.of(2L));
+        assertThat(edgeIndex.likers(2)).isEmpty();
+
+        TestTransaction.end();
+
+        assertThat(edgeIndex.likers(2)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = 2", Integer.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectLikesOfDeletedFilmOrUser() {
+        filmRepository.markDeleted(2L);
+        jdbcTemplate.update("UPDATE users SET deleted = TRUE WHERE user_id = 2");
+
+        assertThatThrownBy(() -> filmRepository.addLike(2L, 1L)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> filmRepository.addLikes(2L, List.of(1L))).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> filmRepository.addLike(1L, 2L)).isInstanceOf(NotFoundException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void shouldCreateFilmWithResolvedReferences() {
+        Film film = new Film();
+        film.setName("Фильм В");
+        film.setDescription("Описание фильма В");
+        film.setReleaseDate(LocalDate.of(2002, 1, 1));
+        film.setDuration(90);
+        film.setMpa(new Mpa(3, null));
+        film.setGenres(Set.of(new Genre(4, null), new Genre(1, null)));
+
+        Film created = filmRepository.create(film);
+
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getMpa().getName()).isEqualTo("PG-13");
+        assertThat(created.getGenres())
+                .extracting(Genre::getId)
+                .containsExactly(1, 4);
+        assertThat(filmRepository.get(created.getId()).getGenres())
+                .isEqualTo(created.getGenres());
+    }
+
+    @Test
+    void shouldRejectUpdateWithUnknownGenre() {
+        Film film = filmRepository.get(1L);
+        film.setGenres(Set.of(new Genre(999, null)));
+
+        assertThatThrownBy(() -> filmRepository.update(film))
+                .isInstanceOf(NotFoundException.class);
+        assertThat(filmRepository.get(1L).getGenres())
+                .extracting(Genre::getId)
+                .containsExactly(1);
+    }
+
+    @Test
+    void shouldBumpVersionOnlyWhenFilmChanges() {
+        Film film = filmRepository.get(1L);
+        assertThat(film.getVersion()).isZero();
+
+        assertThat(filmRepository.update(film).getVersion()).isZero();
+
+        film.setGenres(Set.of(new Genre(1, null), new Genre(3, null)));
+        assertThat(filmRepository.update(film).getVersion()).isEqualTo(1L);
+        assertThat(filmRepository.get(1L).getVersion()).isEqualTo(1L);
+
+        filmRepository.updateGenres(1L, Set.of(1, 3));
+        assertThat(filmRepository.get(1L).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldRejectUpdateOfStaleVersion() {
+        Film film = filmRepository.get(1L);
+        film.setName("Новое название");
+        filmRepository.update(film);
+
+        Film stale = filmRepository.get(1L);
+        stale.setVersion(0L);
+        stale.setName("Устаревшее название");
+
+        assertThatThrownBy(() -> filmRepository.update(stale))
+                .isInstanceOf(VersionConflictException.class);
+        assertThat(filmRepository.get(1L).getName()).isEqualTo("Новое название");
+
+        stale.setVersion(null);
+        assertThat(filmRepository.update(stale).getVersion()).isEqualTo(2L);
+        assertThat(filmRepository.get(1L).getName()).isEqualTo("Устаревшее название");
+    }
+
+    @Test
+    void shouldStoreGenresAsBitmask() {
+        filmRepository.updateGenres(1L, Set.of(1, 6));
+
+        Long mask = jdbcTemplate.queryForObject("SELECT genre_mask FROM films WHERE film_id = 1", Long.class);
+        assertThat(mask).isEqualTo(0b100001L);
+        assertThat(filmRepository.get(1L).getGenres())
+                .extracting(Genre::getName)
+                .containsExactly("Комедия", "Боевик");
+
+        List<Long> dramas = jdbcTemplate.queryForList(
+                "SELECT film_id FROM films WHERE BITAND(genre_mask, CAST(? AS BIGINT)) <> 0", Long.class, GenreMask.bit(2));
+        assertThat(dramas).containsExactly(2L);
+    }
+
+    @Test
+    void shouldShareReferenceInstancesBetweenFilms() {
+        filmRepository.updateGenres(1L, Set.of(2, 4));
+
+        List<Film> films = filmRepository.findAll();
+
+        assertThat(films.get(0).getGenres()).isSameAs(films.get(1).getGenres());
+        assertThatThrownBy(() -> films.get(0).getGenres().clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(filmRepository.get(1L).getMpa()).isSameAs(filmRepository.get(1L).getMpa());
+    }
+
+    @Test
+    void shouldFindFilmsByHugeIdListInChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 25_000).boxed().toList();
+
+        assertThat(filmRepository.findAllById(ids)).extracting(Film::getId).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(filmRepository.countLikes(ids)).hasSize(25_000).containsEntry(1L, 2L).containsEntry(3L, 0L);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.repositories;
+
+import org.h2.Driver;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Основной schema.sql выполняется при каждом запуске (spring.sql.init.mode=always); в тестовом classpath
+// его заслоняет тестовый schema.sql, поэтому скрипт читается из исходников.
+class SchemaMigrationTest {
+    private final DataSource dataSource = new SimpleDriverDataSource(new Driver(),
+            "jdbc:h2:mem:schema-migration;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @Test
+    void shouldMigrateLegacyGenresOnlyOnce() {
+        jdbcTemplate.execute("""
+                CREATE TABLE films (
+                  film_id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                  name varchar(255), description varchar(255), release_date TIMESTAMP, duration BIGINT,
+                  mpa_id INTEGER)
+                """);
+        jdbcTemplate.execute("CREATE TABLE genres (genre_id INTEGER PRIMARY KEY, name VARCHAR(50))");
+        jdbcTemplate.execute("""
+                CREATE TABLE film_genre (
+                  id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                  film_id BIGINT REFERENCES films(film_id) ON DELETE CASCADE,
+                  genre_id INTEGER REFERENCES genres(genre_id) ON DELETE CASCADE)
+                """);
+        jdbcTemplate.update("INSERT INTO genres VALUES (1, 'Комедия'), (4, 'Триллер')");
+        jdbcTemplate.update("INSERT INTO films (name) VALUES ('Старый фильм')");
+        jdbcTemplate.update("INSERT INTO film_genre (film_id, genre_id) VALUES (1, 1), (1, 4)");
+
+        runSchema();
+        assertThat(genreMask()).isEqualTo(0b1001L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE TABLE_NAME = 'FILM_GENRE'", Integer.class)).isZero();
+
+        jdbcTemplate.update("UPDATE films SET genre_mask = 0 WHERE film_id = 1");
+        runSchema();
+
+        assertThat(genreMask()).isZero();
+    }
+
+    private void runSchema() {
+        ResourceDatabasePopulator populator =
+                new ResourceDatabasePopulator(new FileSystemResource("src/main/resources/schema.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+    }
+
+    private long genreMask() {
+        return jdbcTemplate.queryForObject("SELECT genre_mask FROM films WHERE film_id = 1", Long.class);
+    }
+}
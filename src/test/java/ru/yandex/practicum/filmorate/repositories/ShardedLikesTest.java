@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.h2.Driver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.GenreRepository;
+import ru.yandex.practicum.filmorate.dal.HydrationExecutor;
+import ru.yandex.practicum.filmorate.dal.LikeShards;
+import ru.yandex.practicum.filmorate.dal.MpaRepository;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@Import({FilmRepository.class, LikeShards.class, FilmRowMapper.class, GenreRowMapper.class, MpaRepository.class,
+        GenreRepository.class, MpaRowMapper.class, HydrationExecutor.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "filmorate.likes.shards=3",
+        "filmorate.likes.shard-url=" + ShardedLikesTest.SHARD_URL
+})
+@Sql({"/schema.sql", "/data.sql"})
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ShardedLikesTest {
+    static final String SHARD_URL = "jdbc:h2:mem:likes-shard-%d;DB_CLOSE_DELAY=-1";
+
+    private final FilmRepository filmRepository;
+    private final LikeShards likeShards;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Шарды не участвуют в транзакции теста, а id фильмов повторяются после @Sql, поэтому шарды очищаются вручную.
+    @BeforeEach
+    void clearShards() {
+        for (int shard = 0; shard < likeShards.shardCount(); shard++) {
+            new JdbcTemplate(new SimpleDriverDataSource(new Driver(), SHARD_URL.formatted(shard), "sa", "password"))
+                    .update("DELETE FROM likes");
+        }
+    }
+
+    @Test
+    void shouldRankFilmsAcrossShards() {
+        List<Long> filmIds = createFilms(6);
+        for (int i = 0; i < filmIds.size(); i++) {
+            for (long userId = 1; userId <= Math.min(i, 2); userId++) {
+                filmRepository.addLike(filmIds.get(i), userId);
+            }
+        }
+
+        List<Film> popular = filmRepository.getPopularFilms(3);
+
+        assertThat(popular).extracting(Film::getRate).containsExactly(2L, 2L, 2L);
+        assertThat(popular).extracting(Film::getId).containsExactly(filmIds.get(2), filmIds.get(3), filmIds.get(4));
+        assertThat(popular.getFirst().getUserIds()).containsExactlyInAnyOrder(1L, 2L);
+
+        filmRepository.markDeleted(filmIds.get(2));
+
+        assertThat(filmRepository.getPopularFilms(3)).extracting(Film::getId)
+                .containsExactly(filmIds.get(3), filmIds.get(4), filmIds.get(5));
+    }
+
+    @Test
+    void shouldAddLikesBatchToOwningShard() {
+        long filmId = createFilms(1).getFirst();
+
+        filmRepository.addLikes(filmId, List.of(1L, 2L));
+
+        assertThat(filmRepository.countLikes(List.of(filmId))).containsEntry(filmId, 2L);
+        assertThatThrownBy(() -> filmRepository.addLikes(filmId, List.of(1L, 999L)))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void shouldCountAndRemoveLikesInOwningShard() {
+        List<Long> filmIds = createFilms(12);
+        filmIds.forEach(filmId -> filmRepository.addLike(filmId, 1L));
+        filmRepository.addLike(filmIds.getFirst(), 2L);
+        filmRepository.removeLike(filmIds.getFirst(), 1L);
+
+        Map<Long, Long> counts = filmRepository.countLikes(filmIds);
+
+        assertThat(counts.get(filmIds.getFirst())).isEqualTo(1L);
+        assertThat(filmRepository.get(filmIds.getFirst()).getUserIds()).containsExactly(2L);
+        assertThat(counts.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(12L);
+
+        Set<Integer> usedShards = new HashSet<>();
+        filmIds.forEach(filmId -> usedShards.add(likeShards.shardFor(filmId)));
+        assertThat(usedShards).hasSize(likeShards.shardCount());
+    }
+
+    @Test
+    void shouldPurgeLikesAcrossShards() {
+        List<Long> filmIds = createFilms(6);
+        filmIds.forEach(filmId -> filmRepository.addLike(filmId, 1L));
+        filmRepository.addLike(filmIds.getFirst(), 2L);
+        Set<Long> changedFilms = new HashSet<>();
+
+        int deleted = 0;
+        int chunk;
+        while ((chunk = filmRepository.purgeLikesOfUser(1L, 4, changedFilms::add)) > 0) {
+            assertThat(chunk).isLessThanOrEqualTo(4);
+            deleted += chunk;
+        }
+        assertThat(deleted).isEqualTo(6);
+        assertThat(changedFilms).containsExactlyInAnyOrderElementsOf(filmIds);
+
+        assertThat(filmRepository.purgeChunk(filmIds.getFirst(), 10)).isEqualTo(1);
+        assertThat(filmRepository.countLikes(filmIds).values()).containsOnly(0L);
+    }
+
+    @Test
+    void shouldRejectLikeForUnknownFilmOrUser() {
+        assertThatThrownBy(() -> filmRepository.addLike(999L, 1L)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> filmRepository.addLike(1L, 999L)).isInstanceOf(NotFoundException.class);
+    }
+
+    private List<Long> createFilms(int count) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(film_id) FROM films", Long.class);
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) "
+                    + "VALUES (?, 'desc', '2000-01-01', 100, 1)", "Film " + i);
+        }
+        return jdbcTemplate.queryForList("SELECT film_id FROM films WHERE film_id > ? ORDER BY film_id",
+                Long.class, maxId);
+    }
+}
@@ -10,11 +10,14 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dal.UserRepository;
 import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @Import({UserRepository.class, UserRowMapper.class})
@@ -32,6 +35,12 @@ class UserRepositoryTest {
         assertThat(users).hasSize(2);
     }
 
+    @Test
+    void shouldFindUsersByIds() {
+        List<User> users = userRepository.findAllById(List.of(2L, 999L));
+        assertThat(users).extracting(User::getId).containsExactly(2L);
+    }
+
     @Test
     void shouldGetUserById() {
         User user = userRepository.get(1L);
@@ -70,4 +79,79 @@ class UserRepositoryTest {
         friends = userRepository.getFriends(1L);
         assertThat(friends).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldAddFriendIdempotently() {
+        userRepository.addFriend(1L, 2L);
+        userRepository.addFriend(1L, 2L);
+
+        assertThat(userRepository.getFriends(1L)).hasSize(1);
+    }
+
+    @Test
+    void shouldRejectFriendshipWithUnknownUser() {
+        assertThatThrownBy(() -> userRepository.addFriend(1L, 999L))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> userRepository.removeFriend(1L, 999L))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void shouldHideDeletedUserAndPurgeFriendshipsInBothDirections() {
+        userRepository.addFriend(1L, 2L);
+        userRepository.addFriend(2L, 1L);
+
+        assertThat(userRepository.markDeleted(2L)).isTrue();
+
+        assertThat(userRepository.exists(2L)).isFalse();
+        assertThat(userRepository.findAll()).extracting(User::getId).containsExactly(1L);
+        assertThat(userRepository.getFriends(1L)).isEmpty();
+        assertThatThrownBy(() -> userRepository.get(2L)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> userRepository.addFriend(1L, 2L)).isInstanceOf(NotFoundException.class);
+        List<String> visible = new ArrayList<>();
+        userRepository.forEachFriendship((userId, friendId) -> visible.add(userId + "->" + friendId));
+        userRepository.expandFriends(new long[]{1L}, 1, false,
+                (userId, friendId) -> visible.add(userId + "->" + friendId));
+        userRepository.expandFriends(new long[]{1L}, 1, true,
+                (userId, friendId) -> visible.add(userId + "<-" + friendId));
+        assertThat(visible).isEmpty();
+
+        assertThat(userRepository.purgeChunk(2L, 1)).isEqualTo(1);
+        assertThat(userRepository.purgeChunk(2L, 1)).isEqualTo(1);
+        assertThat(userRepository.purgeChunk(2L, 1)).isZero();
+        userRepository.hardDelete(2L);
+
+        assertThat(userRepository.findDeletedIds()).isEmpty();
+        List<String> edges = new ArrayList<>();
+        userRepository.forEachFriendship((userId, friendId) -> edges.add(userId + "->" + friendId));
+        assertThat(edges).isEmpty();
+    }
+
+    @Test
+    void shouldStreamAllFriendships() {
+        userRepository.addFriend(1L, 2L);
+        userRepository.addFriend(2L, 1L);
+        List<String> edges = new ArrayList<>();
+
+        userRepository.forEachFriendship((userId, friendId) -> edges.add(userId + "->" + friendId));
+
+        assertThat(edges).containsExactlyInAnyOrder("1->2", "2->1");
+    }
+
+    @Test
+    void shouldExpandFrontierInBothDirections() {
+        User third = userRepository.create(new User(null, "user3", "Пользователь 3", "user3@test.com", null));
+        userRepository.addFriend(1L, 2L);
+        userRepository.addFriend(third.getId(), 2L);
+        List<String> outgoing = new ArrayList<>();
+        List<String> incoming = new ArrayList<>();
+
+        userRepository.expandFriends(new long[]{1L, third.getId(), 0L}, 2, false,
+                (userId, friendId) -> outgoing.add(userId + "->" + friendId));
+        userRepository.expandFriends(new long[]{2L}, 1, true,
+                (userId, friendId) -> incoming.add(userId + "<-" + friendId));
+
+        assertThat(outgoing).containsExactlyInAnyOrder("1->2", third.getId() + "->2");
+        assertThat(incoming).containsExactlyInAnyOrder("2<-1", "2<-" + third.getId());
+    }
+}
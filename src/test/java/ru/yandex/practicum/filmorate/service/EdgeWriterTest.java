@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EdgeWriterTest {
+
+    @Test
+    void shouldWriteNdjsonLines() {
+        StringWriter out = new StringWriter();
+        EdgeWriter writer = new EdgeWriter(ExportFormat.NDJSON, out, "filmId", "userId");
+
+        writer.accept(1, 20);
+        writer.accept(Long.MAX_VALUE, 0);
+
+        assertThat(out.toString()).isEqualTo("{\"filmId\":1,\"userId\":20}\n"
+                + "{\"filmId\":9223372036854775807,\"userId\":0}\n");
+        assertThat(writer.getRows()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldWriteCsvWithHeader() {
+        StringWriter out = new StringWriter();
+        EdgeWriter writer = new EdgeWriter(ExportFormat.CSV, out, "userId", "friendId");
+
+        writer.accept(3, 4);
+
+        assertThat(out.toString()).isEqualTo("userId,friendId\n3,4\n");
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dal.inmemory.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendPath;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FriendPathFinderTest {
+    private InMemoryUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = new InMemoryUserStorage(Optional.empty(), Optional.empty());
+        for (int i = 1; i <= 10; i++) {
+            userStorage.create(new User(null, "user" + i, null, "user" + i + "@test.com", null));
+        }
+        // Цепочка 1 -> 2 -> ... -> 7 и короткий обход 1 -> 8 -> 5.
+        for (long id = 1; id < 7; id++) {
+            userStorage.addFriend(id, id + 1);
+        }
+        userStorage.addFriend(1L, 8L);
+        userStorage.addFriend(8L, 5L);
+    }
+
+    @Test
+    void shouldFindShortestPath() {
+        FriendPath path = finder(1000).find(1L, 7L, 6);
+
+        assertThat(path.getDistance()).isEqualTo(4);
+        assertThat(path.getPath()).containsExactly(1L, 8L, 5L, 6L, 7L);
+        assertThat(path.isComplete()).isTrue();
+    }
+
+    @Test
+    void shouldFollowFriendshipDirection() {
+        FriendPath path = finder(1000).find(7L, 1L, 6);
+
+        assertThat(path.getDistance()).isNull();
+        assertThat(path.getPath()).isEmpty();
+        assertThat(path.isComplete()).isTrue();
+    }
+
+    @Test
+    void shouldStopAtMaxDepth() {
+        assertThat(finder(1000).find(1L, 7L, 3).getDistance()).isNull();
+        assertThat(finder(1000).find(1L, 1L, 1).getPath()).containsExactly(1L);
+        assertThatThrownBy(() -> finder(1000).find(1L, 7L, 7)).isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void shouldGiveUpWhenNodeBudgetIsExhausted() {
+        FriendPath path = finder(3).find(1L, 7L, 6);
+
+        assertThat(path.isComplete()).isFalse();
+        assertThat(path.getDistance()).isNull();
+        assertThat(path.getVisited()).isLessThanOrEqualTo(3);
+    }
+
+    private FriendPathFinder finder(int maxNodes) {
+        return new FriendPathFinder(userStorage, 6, maxNodes, Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.HotLikeStats;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static ru.yandex.practicum.filmorate.TestFixtures.newFilm;
+import static ru.yandex.practicum.filmorate.TestFixtures.newUser;
+
+// Окно и сброс по расписанию отодвинуты на час: горячие фильмы ищутся и буфер пишется только явными вызовами.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hot-likes;DB_CLOSE_DELAY=-1",
+        "filmorate.likes.hot.threshold=3",
+        "filmorate.likes.hot.window=PT1H",
+        "filmorate.likes.hot.flush-interval=PT1H"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class HotLikeServiceTest {
+
+    private final HotLikeService hotLikeService;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmStorage filmStorage;
+
+    @Test
+    void shouldBufferLikesOfHotFilmAndWriteThemInBatches() {
+        long filmId = filmService.create(newFilm("Hot")).getId();
+        List<Long> userIds = IntStream.range(0, 6)
+                .mapToObj(i -> userService.create(newUser("hotlike" + i)).getId())
+                .toList();
+        userIds.subList(0, 3).forEach(userId -> filmService.addLike(filmId, userId));
+        assertThat(likes(filmId)).isEqualTo(3L);
+
+        hotLikeService.detectHotFilms();
+        assertThat(hotLikeService.getStats().getHotFilms()).containsExactly(filmId);
+
+        filmService.addLike(filmId, userIds.get(3));
+        filmService.addLike(filmId, userIds.get(4));
+        filmService.addLike(filmId, userIds.get(4));
+        filmService.addLike(filmId, userIds.get(5));
+        filmService.removeLike(filmId, userIds.get(5));
+        filmService.removeLike(filmId, userIds.get(0));
+        assertThatThrownBy(() -> filmService.addLike(filmId, 9999L)).isInstanceOf(UserNotFoundException.class);
+
+        assertThat(likes(filmId)).isEqualTo(2L);
+        assertThat(hotLikeService.getStats().getPendingLikes()).isEqualTo(2L);
+        assertThat(filmService.get(filmId).getRate()).isEqualTo(4L);
+        assertThat(filmService.get(filmId).getUserIds()).containsExactlyInAnyOrderElementsOf(userIds.subList(1, 5));
+        assertThat(filmService.getPopular(1)).extracting(Film::getId, Film::getRate).containsExactly(tuple(filmId, 4L));
+
+        hotLikeService.flush();
+
+        assertThat(likes(filmId)).isEqualTo(4L);
+        HotLikeStats stats = hotLikeService.getStats();
+        assertThat(stats.getPendingLikes()).isZero();
+        assertThat(stats.getFlushedLikes()).isEqualTo(2L);
+        assertThat(stats.getBatches()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldRejectLikesOfDeletedHotFilm() {
+        long filmId = filmService.create(newFilm("Hot")).getId();
+        List<Long> userIds = IntStream.range(0, 4)
+                .mapToObj(i -> userService.create(newUser("dellike" + i)).getId())
+                .toList();
+        userIds.subList(0, 3).forEach(userId -> filmService.addLike(filmId, userId));
+        hotLikeService.detectHotFilms();
+        filmService.addLike(filmId, userIds.get(3));
+        HotLikeStats before = hotLikeService.getStats();
+
+        filmService.delete(filmId);
+
+        assertThat(hotLikeService.getStats().getHotFilms()).doesNotContain(filmId);
+        assertThatThrownBy(() -> filmService.addLike(filmId, userIds.get(0))).isInstanceOf(NotFoundException.class);
+        hotLikeService.flush();
+        HotLikeStats after = hotLikeService.getStats();
+        assertThat(after.getDroppedLikes()).isEqualTo(before.getDroppedLikes() + 1);
+        assertThat(after.getFlushedLikes()).isEqualTo(before.getFlushedLikes());
+    }
+
+    @Test
+    void shouldCoolDownFilmWithoutLikes() {
+        long filmId = filmService.create(newFilm("Hot")).getId();
+        long userId = userService.create(newUser("coolfilm")).getId();
+        for (int i = 0; i < 3; i++) {
+            filmService.addLike(filmId, userId);
+        }
+        hotLikeService.detectHotFilms();
+        assertThat(hotLikeService.getStats().getHotFilms()).contains(filmId);
+
+        hotLikeService.detectHotFilms();
+        hotLikeService.flush();
+
+        assertThat(hotLikeService.getStats().getHotFilms()).doesNotContain(filmId);
+        filmService.removeLike(filmId, userId);
+        assertThat(likes(filmId)).isZero();
+    }
+
+    private long likes(long filmId) {
+        return filmStorage.countLikes(List.of(filmId)).get(filmId);
+    }
+}
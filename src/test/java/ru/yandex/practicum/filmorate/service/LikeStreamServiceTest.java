@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "filmorate.like-stream.interval=PT1H")
+class LikeStreamServiceTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private LikeStreamService likeStreamService;
+
+    @Test
+    void shouldPushCoalescedLikeCounts() throws Exception {
+        BlockingQueue<String> events = subscribe("/films/2/likes/stream");
+        assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("{\"filmId\":2,\"likes\":1}");
+
+        // Тикер фактически выключен, рассылку запускаем сами, чтобы не зависеть от таймингов
+        try {
+            filmService.addLike(2, 2);
+            filmService.removeLike(2, 1);
+            filmService.addLike(2, 1);
+            likeStreamService.publish();
+
+            assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("{\"filmId\":2,\"likes\":2}");
+            likeStreamService.publish();
+            assertThat(events.poll(300, TimeUnit.MILLISECONDS)).isNull();
+        } finally {
+            filmService.removeLike(2, 2);
+        }
+    }
+
+    @Test
+    void shouldPushPopularFilms() throws Exception {
+        BlockingQueue<String> events = subscribe("/films/popular/stream?count=1");
+        assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("[{\"filmId\":1,\"likes\":2}]");
+    }
+
+    private BlockingQueue<String> subscribe(String path) {
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        HttpClient.newHttpClient()
+                .sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenAccept(response -> response.body()
+                        .filter(line -> line.startsWith("data:"))
+                        .forEach(line -> events.add(line.substring("data:".length()))));
+        return events;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+    private static final int CALLERS = 16;
+
+    @Test
+    void shouldShareOneExecutionBetweenConcurrentCallers() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CALLERS)) {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "film";
+                })));
+            }
+            waitUntilAllJoined(flight);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("film");
+            }
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(flight.getStats().getExecutions()).isEqualTo(1);
+        assertThat(flight.getStats().getCoalesced()).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    void shouldNotCacheAfterCompletion() {
+        SingleFlight<Long, Integer> flight = new SingleFlight<>("test");
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.execute(1L, loads::incrementAndGet);
+        int second = flight.execute(1L, loads::incrementAndGet);
+
+        assertThat(second).isEqualTo(2);
+        assertThat(flight.getStats().getCoalesced()).isZero();
+    }
+
+    @Test
+    void shouldPropagateExceptionToAllCallers() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test");
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<String> leader = executor.submit(() -> flight.execute(1L, () -> {
+                await(release);
+                throw new NotFoundException("missing");
+            }));
+            waitUntilAllJoined(flight, 1);
+            Future<String> follower = executor.submit(() -> flight.execute(1L, () -> "unexpected"));
+            waitUntilAllJoined(flight, 2);
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(NotFoundException.class);
+        }
+    }
+
+    private void waitUntilAllJoined(SingleFlight<?, ?> flight) throws InterruptedException {
+        waitUntilAllJoined(flight, CALLERS);
+    }
+
+    private void waitUntilAllJoined(SingleFlight<?, ?> flight, int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.getStats().getCalls() < callers && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.inmemory.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MutualFriend;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PurgeService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.yandex.practicum.filmorate.TestFixtures.newFilm;
+import static ru.yandex.practicum.filmorate.TestFixtures.newUser;
+
+@SpringBootTest(properties = {
+        "filmorate.storage=memory",
+        "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class InMemoryStorageTest {
+
+    private final FilmStorage filmStorage;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final PurgeService purgeService;
+
+    @Test
+    void shouldUseInMemoryStorage() {
+        assertThat(filmStorage).isInstanceOf(InMemoryFilmStorage.class);
+    }
+
+    @Test
+    void shouldRankFilmsByLikes() {
+        User first = userService.create(newUser("first"));
+        User second = userService.create(newUser("second"));
+        Film film = filmService.create(newFilm("Фильм"));
+        Film popular = filmService.create(newFilm("Фильм"));
+
+        filmService.addLike(popular.getId(), first.getId());
+        filmService.addLike(popular.getId(), second.getId());
+        filmService.addLike(popular.getId(), second.getId());
+        filmService.addLike(film.getId(), first.getId());
+
+        List<Film> films = filmService.getPopular(2);
+        assertThat(films).extracting(Film::getId).containsExactly(popular.getId(), film.getId());
+        assertThat(films.getFirst().getRate()).isEqualTo(2L);
+        assertThat(films.getFirst().getGenres()).extracting(Genre::getName).containsExactly("Драма");
+        assertThat(films.getFirst().getMpa().getName()).isEqualTo("PG");
+
+        assertThatThrownBy(() -> filmService.addLike(film.getId(), 999L))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void shouldFindCommonFriends() {
+        User user = userService.create(newUser("user"));
+        User friend = userService.create(newUser("friend"));
+        User other = userService.create(newUser("other"));
+
+        userService.addFriend(user.getId(), friend.getId());
+        userService.addFriend(other.getId(), friend.getId());
+        userService.addFriend(user.getId(), other.getId());
+
+        assertThat(userService.getFriendsById(user.getId()))
+                .extracting(User::getId)
+                .containsExactly(friend.getId(), other.getId());
+        assertThat(userService.getCommonFriends(user.getId(), other.getId()))
+                .extracting(User::getId)
+                .containsExactly(friend.getId());
+
+        userService.removeFriend(user.getId(), friend.getId());
+        assertThat(userService.getFriendsById(user.getId()))
+                .extracting(User::getId)
+                .containsExactly(other.getId());
+    }
+
+    @Test
+    void shouldRankFriendsByMutualFriends() {
+        User user = userService.create(newUser("ranked"));
+        User lonely = userService.create(newUser("lonely"));
+        User popular = userService.create(newUser("popular"));
+        User middle = userService.create(newUser("middle"));
+
+        userService.addFriend(user.getId(), lonely.getId());
+        userService.addFriend(user.getId(), popular.getId());
+        userService.addFriend(user.getId(), middle.getId());
+        userService.addFriend(popular.getId(), lonely.getId());
+        userService.addFriend(popular.getId(), middle.getId());
+        userService.addFriend(middle.getId(), lonely.getId());
+        userService.addFriend(middle.getId(), user.getId());
+
+        List<MutualFriend> friends = userService.getFriendsByMutual(user.getId());
+
+        assertThat(friends).extracting(friend -> friend.getUser().getId())
+                .containsExactly(popular.getId(), middle.getId(), lonely.getId());
+        assertThat(friends).extracting(MutualFriend::getMutualFriends).containsExactly(2, 1, 0);
+    }
+
+    @Test
+    void shouldDeleteFilmsAndUsersWithBackgroundPurge() {
+        User user = userService.create(newUser("leaver"));
+        User friend = userService.create(newUser("stayer"));
+        Film film = filmService.create(newFilm("Фильм"));
+        Film deletedFilm = filmService.create(newFilm("Фильм"));
+        userService.addFriend(friend.getId(), user.getId());
+        filmService.addLike(film.getId(), user.getId());
+        filmService.addLike(deletedFilm.getId(), friend.getId());
+
+        userService.delete(user.getId());
+        filmService.delete(deletedFilm.getId());
+        purgeService.purgeAll();
+
+        assertThatThrownBy(() -> userService.get(user.getId())).isInstanceOf(UserNotFoundException.class);
+        assertThatThrownBy(() -> filmService.get(deletedFilm.getId())).isInstanceOf(FilmNotFoundException.class);
+        assertThatThrownBy(() -> userService.delete(user.getId())).isInstanceOf(UserNotFoundException.class);
+        assertThat(userService.getFriendsById(friend.getId())).isEmpty();
+        assertThat(filmService.get(film.getId()).getRate()).isZero();
+        assertThat(purgeService.getStats().getPendingUsers()).isZero();
+        assertThat(purgeService.getStats().getUsersPurged()).isPositive();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.web;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.web.SchemaProtobufHttpMessageConverter.APPLICATION_PROTOBUF;
+
+class SchemaProtobufHttpMessageConverterTest {
+    private static final Type FILM_LIST = new ParameterizedTypeReference<List<Film>>() {
+    }.getType();
+
+    private final NativeProtobufSchema schema = BinaryMediaTypesConfiguration.loadSchema();
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(new ProtobufFactory())
+            .featuresToDisable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final SchemaProtobufHttpMessageConverter converter = new SchemaProtobufHttpMessageConverter(mapper, schema);
+
+    @Test
+    void shouldWriteOnlyDeclaredTypes() {
+        assertThat(converter.canWrite(FILM_LIST, List.class, APPLICATION_PROTOBUF)).isTrue();
+        assertThat(converter.canWrite(Film.class, Film.class, APPLICATION_PROTOBUF)).isTrue();
+        assertThat(converter.canWrite(new ParameterizedTypeReference<List<String>>() {
+        }.getType(), List.class, APPLICATION_PROTOBUF)).isFalse();
+        assertThat(converter.canWrite(Map.class, Map.class, APPLICATION_PROTOBUF)).isFalse();
+        assertThat(converter.canRead(Film.class, null, APPLICATION_PROTOBUF)).isFalse();
+    }
+
+    @Test
+    void shouldEncodeFilmListBySchema() throws Exception {
+        Film film = new Film();
+        film.setId(7L);
+        film.setName("Фильм");
+        film.setReleaseDate(LocalDate.of(2000, 1, 2));
+        film.setDuration(90);
+        film.setMpa(new Mpa(1, "G"));
+        film.setGenres(Set.of(new Genre(2, "Драма")));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        converter.write(List.of(film), FILM_LIST, APPLICATION_PROTOBUF, output);
+
+        Map<String, List<Map<String, Object>>> decoded = new ProtobufMapper()
+                .readerFor(new TypeReference<Map<String, List<Map<String, Object>>>>() {
+                })
+                .with(schema.forType("FilmList"))
+                .readValue(output.getBodyAsBytes());
+        Map<String, Object> message = decoded.get("items").getFirst();
+        assertThat(message).containsEntry("id", 7L).containsEntry("name", "Фильм")
+                .containsEntry("releaseDate", "2000-01-02").containsEntry("duration", 90L)
+                .doesNotContainKeys("mpaId", "genreIds");
+        assertThat(message.get("genres")).asList().hasSize(1);
+        assertThat(output.getHeaders().getContentType()).isEqualTo(APPLICATION_PROTOBUF);
+    }
+
+    @Test
+    void shouldEncodeUser() throws Exception {
+        User user = new User(3L, "login", "name", "a@b.c", LocalDate.of(1990, 5, 6));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        converter.write(user, User.class, APPLICATION_PROTOBUF, output);
+
+        Map<String, Object> decoded = new ProtobufMapper().readerFor(new TypeReference<Map<String, Object>>() {
+        }).with(schema.forType("User")).readValue(output.getBodyAsBytes());
+        assertThat(decoded).containsEntry("login", "login").containsEntry("birthday", "1990-05-06");
+    }
+}
@@ -1,5 +1,4 @@
 DELETE FROM likes;
-DELETE FROM film_genre;
 DELETE FROM films;
 DELETE FROM users;
 DELETE FROM genres;
@@ -20,19 +19,18 @@ INSERT INTO genres (genre_id, name) VALUES
   (5, 'Документальный'),
   (6, 'Боевик');
 
-INSERT INTO films (film_id, name, description, release_date, duration, mpa_id) VALUES
-  (1, 'Фильм А', 'Описание фильма А', '2000-01-01 00:00:00', 100, 1),
-  (2, 'Фильм Б', 'Описание фильма Б', '2001-01-01 00:00:00', 110, 2);
+INSERT INTO films (film_id, name, description, release_date, duration, mpa_id, genre_mask) VALUES
+  (1, 'Фильм А', 'Описание фильма А', '2000-01-01 00:00:00', 100, 1, 1),
+  (2, 'Фильм Б', 'Описание фильма Б', '2001-01-01 00:00:00', 110, 2, 10);
 
-INSERT INTO film_genre (film_id, genre_id) VALUES
-  (1, 1),
-  (2, 2),
-  (2, 4);
+ALTER TABLE films ALTER COLUMN film_id RESTART WITH 3;
 
 INSERT INTO users (user_id, email, login, name, birthday) VALUES
   (1, 'user1@test.com', 'user1', 'Пользователь 1', '1990-01-01'),
   (2, 'user2@test.com', 'user2', 'Пользователь 2', '1995-01-01');
 
+ALTER TABLE users ALTER COLUMN user_id RESTART WITH 3;
+
 INSERT INTO likes (user_id, film_id) VALUES
   (1, 1),
   (2, 1),
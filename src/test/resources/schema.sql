@@ -14,7 +14,10 @@ CREATE TABLE IF NOT EXISTS films (
     description VARCHAR(255),
     release_date TIMESTAMP,
     duration BIGINT,
-    mpa_id INTEGER REFERENCES mpa_rating(rating_id) ON DELETE SET NULL
+    mpa_id INTEGER REFERENCES mpa_rating(rating_id) ON DELETE SET NULL,
+    genre_mask BIGINT NOT NULL DEFAULT 0,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS users (
@@ -22,15 +25,13 @@ CREATE TABLE IF NOT EXISTS users (
     login VARCHAR(10) NOT NULL CHECK (LENGTH(login) >= 5),
     name VARCHAR(255),
     email VARCHAR(255),
-    birthday TIMESTAMP
+    birthday TIMESTAMP,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE
 );
 
-CREATE TABLE IF NOT EXISTS film_genre (
-    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    film_id BIGINT REFERENCES films(film_id) ON DELETE CASCADE,
-    genre_id INTEGER REFERENCES genres(genre_id) ON DELETE CASCADE,
-    UNIQUE (film_id, genre_id)
-);
+ALTER TABLE films ADD COLUMN IF NOT EXISTS deleted BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE films ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
 
 CREATE TABLE IF NOT EXISTS likes (
     like_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -44,4 +45,13 @@ CREATE TABLE IF NOT EXISTS friends (
     user_id BIGINT REFERENCES users(user_id) ON DELETE CASCADE,
     friend_id BIGINT REFERENCES users(user_id) ON DELETE CASCADE,
     UNIQUE(user_id, friend_id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS schema_version (
+    id INTEGER PRIMARY KEY,
+    checksum VARCHAR(64) NOT NULL
+);
+
+-- БД прошлых версий хранили номер, который приходилось поднимать вручную
+ALTER TABLE schema_version ADD COLUMN IF NOT EXISTS checksum VARCHAR(64);
+ALTER TABLE schema_version DROP COLUMN IF EXISTS version;
\ No newline at end of file